@@ -1,6 +1,7 @@
 package com.keeppixel.magnitalo;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -8,28 +9,74 @@ import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.cardview.widget.CardView;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import java.util.ArrayList;
+import java.util.List;
 
 public class AllAppsAdapter extends RecyclerView.Adapter<AllAppsAdapter.ViewHolder> {
 
     private Context context;
-    private ArrayList<AppItem> apps;
+    // Diffs on a background thread; the list on screen is the differ's current list
+    private final AsyncListDiffer<AppItem> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    // Latest list handed to the differ, possibly still being diffed; batches extend this one
+    private List<AppItem> submitted;
     private OnItemClickListener clickListener;
+    private OnItemLongClickListener longClickListener;
+    private IconCache iconCache;
 
     public interface OnItemClickListener {
         void onAppClick(AppItem app);
     }
 
-    public AllAppsAdapter(Context context, ArrayList<AppItem> apps) {
+    public interface OnItemLongClickListener {
+        boolean onAppLongClick(AppItem app, View view);
+    }
+
+    public AllAppsAdapter(Context context, List<AppItem> apps, IconCache iconCache) {
         this.context = context;
-        this.apps = apps;
+        this.iconCache = iconCache;
+        // Own copy: the adapter shows either the whole catalog or search results.
+        // The first list is applied at once, there is nothing to diff against.
+        submitted = new ArrayList<>(apps);
+        differ.submitList(submitted);
     }
 
     public void setOnItemClickListener(OnItemClickListener listener) {
         this.clickListener = listener;
     }
 
+    public void setOnItemLongClickListener(OnItemLongClickListener listener) {
+        this.longClickListener = listener;
+    }
+
+    public void addApps(List<AppItem> newApps) {
+        List<AppItem> extended = new ArrayList<>(submitted.size() + newApps.size());
+        extended.addAll(submitted);
+        extended.addAll(newApps);
+        submitted = extended;
+        differ.submitList(extended);
+    }
+
+    public void notifyAppsChanged(List<AppItem> changedApps) {
+        List<AppItem> apps = differ.getCurrentList();
+        for (AppItem app : changedApps) {
+            int position = apps.indexOf(app);
+            if (position >= 0) {
+                notifyItemChanged(position);
+            }
+        }
+    }
+
+    // Dispatches only the differences so unchanged tiles keep their views.
+    // onCommitted runs once the list is on screen, unless a newer list replaced it first.
+    public void updateApps(List<AppItem> newApps, Runnable onCommitted) {
+        // The caller keeps mutating its list, the differ needs one that stays as submitted
+        submitted = new ArrayList<>(newApps);
+        differ.submitList(submitted, onCommitted);
+    }
+
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -39,12 +86,22 @@ public class AllAppsAdapter extends RecyclerView.Adapter<AllAppsAdapter.ViewHold
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        AppItem app = apps.get(position);
+        AppItem app = differ.getCurrentList().get(position);
 
         holder.appName.setText(app.name);
 
-        // Set icon - prefer drawable over resource
-        if (app.iconDrawable != null) {
+        // Set icon - prefer cached bitmap, then drawable, then resource
+        Bitmap cachedIcon = iconCache != null ? iconCache.getCached(app.iconKey) : null;
+        holder.appIcon.setTag(app.iconKey);
+        if (cachedIcon != null) {
+            holder.appIcon.setImageBitmap(cachedIcon);
+            holder.appIcon.setColorFilter(null);
+        } else if (iconCache != null && app.iconKey != null) {
+            // Decode off the main thread, the placeholder stays until it is ready
+            holder.appIcon.setImageDrawable(null);
+            iconCache.loadInto(holder.appIcon, app.packageName, app.versionCode,
+                    holder.iconBackground::setBackgroundColor);
+        } else if (app.iconDrawable != null) {
             holder.appIcon.setImageDrawable(app.iconDrawable);
             // Remove tint for real app icons
             holder.appIcon.setColorFilter(null);
@@ -54,12 +111,17 @@ public class AllAppsAdapter extends RecyclerView.Adapter<AllAppsAdapter.ViewHold
             holder.appIcon.setColorFilter(context.getResources().getColor(android.R.color.white));
         }
 
-        // Set background color
-        try {
-            holder.iconBackground.setBackgroundColor(context.getResources().getColor(app.colorRes));
-        } catch (Exception e) {
-            // Fallback color if resource not found
-            holder.iconBackground.setBackgroundColor(context.getResources().getColor(R.color.blue_400));
+        // Set background color - extracted from the icon once it has been loaded
+        int tileColor = iconCache != null ? iconCache.getTileColor(app.iconKey) : 0;
+        if (tileColor != 0) {
+            holder.iconBackground.setBackgroundColor(tileColor);
+        } else {
+            try {
+                holder.iconBackground.setBackgroundColor(context.getResources().getColor(app.colorRes));
+            } catch (Exception e) {
+                // Fallback color if resource not found
+                holder.iconBackground.setBackgroundColor(context.getResources().getColor(R.color.blue_400));
+            }
         }
 
         // Set click listener
@@ -82,13 +144,36 @@ public class AllAppsAdapter extends RecyclerView.Adapter<AllAppsAdapter.ViewHold
                     })
                     .start();
         });
+
+        holder.cardView.setOnLongClickListener(v ->
+                longClickListener != null && longClickListener.onAppLongClick(app, v));
+    }
+
+    public AppItem getApp(int position) {
+        return differ.getCurrentList().get(position);
     }
 
     @Override
     public int getItemCount() {
-        return apps.size();
+        return differ.getCurrentList().size();
     }
 
+    // Runs on the differ's background thread; the compared fields are set before an app joins the catalog
+    static final DiffUtil.ItemCallback<AppItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<AppItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull AppItem oldApp, @NonNull AppItem newApp) {
+            return oldApp.componentKey().equals(newApp.componentKey());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull AppItem oldApp, @NonNull AppItem newApp) {
+            return oldApp == newApp || (oldApp.name.equals(newApp.name)
+                    && oldApp.versionCode == newApp.versionCode
+                    && oldApp.colorRes == newApp.colorRes
+                    && oldApp.iconDrawable == newApp.iconDrawable);
+        }
+    };
+
     static class ViewHolder extends RecyclerView.ViewHolder {
         CardView cardView;
         View iconBackground;
@@ -0,0 +1,133 @@
+package com.keeppixel.magnitalo;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+public class AlphabetRailView extends View {
+
+    // Colors matching CarPlay theme
+    private static final int COLOR_LETTER = 0xFF8E8E93;
+    private static final int COLOR_ACTIVE = 0xFF007AFF;
+    private static final int COLOR_TOUCH_BACKGROUND = 0x1AFFFFFF;
+
+    private Paint letterPaint;
+    private Paint backgroundPaint;
+
+    private String[] sections = new String[0];
+    private int activeSection = -1;
+    private boolean touching;
+    private float maxTextSize;
+
+    private OnSectionSelectedListener listener;
+
+    public interface OnSectionSelectedListener {
+        void onSectionSelected(int section);
+    }
+
+    public AlphabetRailView(Context context) {
+        super(context);
+        init();
+    }
+
+    public AlphabetRailView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init();
+    }
+
+    public AlphabetRailView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init();
+    }
+
+    private void init() {
+        maxTextSize = 12f * getResources().getDisplayMetrics().scaledDensity;
+
+        letterPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        letterPaint.setTextAlign(Paint.Align.CENTER);
+        letterPaint.setTypeface(android.graphics.Typeface.DEFAULT_BOLD);
+
+        backgroundPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        backgroundPaint.setColor(COLOR_TOUCH_BACKGROUND);
+    }
+
+    public void setSections(String[] sections) {
+        this.sections = sections != null ? sections : new String[0];
+        activeSection = -1;
+        invalidate();
+    }
+
+    public void setActiveSection(int section) {
+        if (section != activeSection) {
+            activeSection = section;
+            invalidate();
+        }
+    }
+
+    public void setOnSectionSelectedListener(OnSectionSelectedListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (sections.length == 0) return;
+
+        float width = getWidth();
+        float slot = (getHeight() - getPaddingTop() - getPaddingBottom()) / (float) sections.length;
+
+        if (touching) {
+            float radius = width / 2f;
+            canvas.drawRoundRect(0, 0, width, getHeight(), radius, radius, backgroundPaint);
+        }
+
+        letterPaint.setTextSize(Math.min(maxTextSize, slot * 0.8f));
+        float baselineOffset = -(letterPaint.ascent() + letterPaint.descent()) / 2f;
+        for (int i = 0; i < sections.length; i++) {
+            float centerY = getPaddingTop() + slot * i + slot / 2f;
+            letterPaint.setColor(i == activeSection ? COLOR_ACTIVE : COLOR_LETTER);
+            canvas.drawText(sections[i], width / 2f, centerY + baselineOffset, letterPaint);
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (sections.length == 0) return false;
+
+        switch (event.getAction()) {
+            case MotionEvent.ACTION_DOWN:
+                touching = true;
+                getParent().requestDisallowInterceptTouchEvent(true);
+                selectSectionAt(event.getY(), true);
+                return true;
+
+            case MotionEvent.ACTION_MOVE:
+                selectSectionAt(event.getY(), false);
+                return true;
+
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                touching = false;
+                invalidate();
+                return true;
+        }
+        return super.onTouchEvent(event);
+    }
+
+    private void selectSectionAt(float y, boolean always) {
+        float slot = (getHeight() - getPaddingTop() - getPaddingBottom()) / (float) sections.length;
+        int section = (int) ((y - getPaddingTop()) / slot);
+        section = Math.max(0, Math.min(section, sections.length - 1));
+
+        // While dragging only report letter changes, a new touch always jumps
+        boolean changed = section != activeSection;
+        activeSection = section;
+        invalidate();
+        if ((changed || always) && listener != null) {
+            listener.onSectionSelected(section);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.keeppixel.magnitalo;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import java.text.CollationKey;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class AppCatalogLoader {
+
+    // Apps published per batch after the first screen
+    private static final int BATCH_SIZE = 32;
+    // Neutral tile until the icon color has been extracted
+    public static final int DEFAULT_TILE_COLOR = R.color.gray_500;
+
+    private final Context context;
+    private final PackageManager packageManager;
+    private final AppCatalogSnapshot snapshot;
+    private final IconCache iconCache;
+    private final PackageMetadataCache metadataCache;
+    private final AppSorter sorter = new AppSorter();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Bumped on every load/cancel so stale batches are dropped
+    private volatile int generation;
+    private static final int NOT_CANCELLABLE = -1;
+
+    public interface Listener {
+        // Apps appended to the end of the catalog
+        void onAppsLoaded(List<AppItem> batch);
+        // Whole catalog replaced after reconciling the snapshot with PackageManager
+        void onCatalogReconciled(List<AppItem> apps);
+        // Icons of already published apps are now in the icon cache
+        void onIconsLoaded(List<AppItem> apps);
+        void onLoadFinished();
+    }
+
+    public interface PackageListener {
+        // Current launcher entries of one package, sorted; empty if it has none left
+        void onPackageLoaded(String packageName, List<AppItem> apps);
+    }
+
+    public AppCatalogLoader(Context context, IconCache iconCache, PackageMetadataCache metadataCache) {
+        this.context = context.getApplicationContext();
+        this.packageManager = context.getPackageManager();
+        this.snapshot = new AppCatalogSnapshot(this.context, iconCache);
+        this.iconCache = iconCache;
+        this.metadataCache = metadataCache;
+    }
+
+    public void load(int firstBatchSize, Listener listener) {
+        final int token = ++generation;
+        final int firstBatch = Math.max(1, firstBatchSize);
+        executor.execute(() -> {
+            List<AppItem> cached = snapshot.read();
+            if (cached != null && !cached.isEmpty()) {
+                for (AppItem app : cached) {
+                    sorter.assignKey(app);
+                }
+                // Render the previous catalog right away, then bring it up to date
+                publish(token, cached, listener);
+                reconcileInBackground(token, cached, firstBatch, listener);
+            } else {
+                loadInBackground(token, firstBatch, listener);
+            }
+        });
+    }
+
+    public void loadPackage(String packageName, PackageListener listener) {
+        executor.execute(() -> {
+            // Drop icons of the previous version before warming the new one
+            iconCache.removePackage(packageName);
+
+            List<CatalogEntry> entries = queryEntries(packageName, NOT_CANCELLABLE);
+            ArrayList<AppItem> apps = new ArrayList<>();
+            if (entries != null) {
+                for (CatalogEntry entry : entries) {
+                    AppItem app = createAppItem(entry);
+                    iconCache.getIcon(app.packageName, app.versionCode);
+                    apps.add(app);
+                }
+            }
+            mainHandler.post(() -> listener.onPackageLoaded(packageName, apps));
+        });
+    }
+
+    public void removePackage(String packageName) {
+        executor.execute(() -> iconCache.removePackage(packageName));
+    }
+
+    public void saveSnapshot(List<AppItem> apps) {
+        List<AppItem> copy = new ArrayList<>(apps);
+        executor.execute(() -> snapshot.write(copy));
+    }
+
+    public void cancel() {
+        generation++;
+    }
+
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    private void loadInBackground(int token, int firstBatchSize, Listener listener) {
+        List<CatalogEntry> entries = queryEntries(null, token);
+        if (entries == null) return;
+
+        ArrayList<AppItem> all = new ArrayList<>(entries.size());
+        ArrayList<AppItem> batch = new ArrayList<>();
+        int batchLimit = firstBatchSize;
+        for (CatalogEntry entry : entries) {
+            if (token != generation) return;
+            AppItem app = createAppItem(entry);
+            // Warm the shared icon cache so the first bind is a memory hit
+            iconCache.getIcon(app.packageName, app.versionCode);
+            batch.add(app);
+            all.add(app);
+
+            if (batch.size() >= batchLimit) {
+                publish(token, batch, listener);
+                batch = new ArrayList<>();
+                batchLimit = BATCH_SIZE;
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            publish(token, batch, listener);
+        }
+        snapshot.write(all);
+        finish(token, listener);
+    }
+
+    private void reconcileInBackground(int token, List<AppItem> cached, int firstBatchSize, Listener listener) {
+        List<CatalogEntry> entries = queryEntries(null, token);
+        if (entries == null) return;
+
+        Map<String, AppItem> cachedByKey = new HashMap<>();
+        for (AppItem app : cached) {
+            cachedByKey.put(app.componentKey(), app);
+        }
+
+        // Keep snapshot items that are still current so the adapter sees them as unchanged
+        ArrayList<AppItem> fresh = new ArrayList<>(entries.size());
+        for (CatalogEntry entry : entries) {
+            AppItem previous = cachedByKey.get(entry.packageName + "/" + entry.activityName);
+            if (previous != null && previous.versionCode == entry.versionCode
+                    && previous.name.equals(entry.label)) {
+                fresh.add(previous);
+            } else {
+                fresh.add(createAppItem(entry));
+            }
+        }
+
+        if (token != generation) return;
+        mainHandler.post(() -> {
+            if (token == generation) {
+                listener.onCatalogReconciled(fresh);
+            }
+        });
+
+        // Warm icons in display order, mostly from the disk tier after the first run
+        int batchLimit = firstBatchSize;
+        for (int start = 0; start < fresh.size(); start += batchLimit) {
+            if (token != generation) return;
+            int end = Math.min(start + batchLimit, fresh.size());
+            List<AppItem> batch = new ArrayList<>(fresh.subList(start, end));
+            for (AppItem app : batch) {
+                iconCache.getIcon(app.packageName, app.versionCode);
+            }
+            mainHandler.post(() -> {
+                if (token == generation) {
+                    listener.onIconsLoaded(batch);
+                }
+            });
+            batchLimit = BATCH_SIZE;
+        }
+
+        snapshot.write(fresh);
+        finish(token, listener);
+    }
+
+    // Returns launcher entries sorted by label, or null if the load was cancelled.
+    // A null packageName queries the whole catalog.
+    private List<CatalogEntry> queryEntries(String packageName, int token) {
+        Intent intent = new Intent(Intent.ACTION_MAIN);
+        intent.addCategory(Intent.CATEGORY_LAUNCHER);
+        if (packageName != null) {
+            intent.setPackage(packageName);
+        }
+
+        List<ResolveInfo> infos = packageManager.queryIntentActivities(intent, 0);
+        if (packageName == null) {
+            // One IPC for all packages instead of getPackageInfo per app
+            metadataCache.loadAll();
+        }
+        String ownPackage = context.getPackageName();
+
+        // Labels are cheap compared to icons: sort first, then load icons in display order
+        ArrayList<CatalogEntry> entries = new ArrayList<>(infos.size());
+        for (ResolveInfo info : infos) {
+            if (token != NOT_CANCELLABLE && token != generation) return null;
+            String entryPackage = info.activityInfo.packageName;
+            if (entryPackage.equals(ownPackage)) continue;
+
+            PackageMetadataCache.Metadata metadata = metadataCache.get(entryPackage);
+            String label = info.loadLabel(packageManager).toString();
+            entries.add(new CatalogEntry(
+                    label,
+                    sorter.keyFor(label),
+                    entryPackage,
+                    info.activityInfo.name,
+                    metadata != null ? metadata.versionCode : 0));
+        }
+        entries.sort((a, b) -> a.sortKey.compareTo(b.sortKey));
+        return entries;
+    }
+
+    @SuppressWarnings("deprecation")
+    public static long versionCodeOf(PackageInfo info) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            return info.getLongVersionCode();
+        }
+        return info.versionCode;
+    }
+
+    private AppItem createAppItem(CatalogEntry entry) {
+        // Default icon is only shown if the package has no icon at all
+        AppItem app = new AppItem(entry.label, entry.packageName,
+                R.drawable.round_phone_android_24, DEFAULT_TILE_COLOR);
+        app.activityName = entry.activityName;
+        app.versionCode = entry.versionCode;
+        app.iconKey = AppItem.iconKeyFor(entry.packageName, entry.versionCode);
+        app.sortKey = entry.sortKey;
+        return app;
+    }
+
+    private void publish(int token, List<AppItem> batch, Listener listener) {
+        mainHandler.post(() -> {
+            if (token == generation) {
+                listener.onAppsLoaded(batch);
+            }
+        });
+    }
+
+    private void finish(int token, Listener listener) {
+        mainHandler.post(() -> {
+            if (token == generation) {
+                listener.onLoadFinished();
+            }
+        });
+    }
+
+    private static class CatalogEntry {
+        final String label;
+        final CollationKey sortKey;
+        final String packageName;
+        final String activityName;
+        final long versionCode;
+
+        CatalogEntry(String label, CollationKey sortKey, String packageName, String activityName, long versionCode) {
+            this.label = label;
+            this.sortKey = sortKey;
+            this.packageName = packageName;
+            this.activityName = activityName;
+            this.versionCode = versionCode;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.keeppixel.magnitalo;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.util.AtomicFile;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AppCatalogSnapshot {
+
+    private static final String FILE_NAME = "app_catalog.bin";
+    private static final int MAGIC = 0x4D434154; // "MCAT"
+    private static final int FORMAT_VERSION = 2;
+
+    private final AtomicFile file;
+    private final long launcherUpdateTime;
+    private final IconCache iconCache;
+
+    public AppCatalogSnapshot(Context context, IconCache iconCache) {
+        this.file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+        this.iconCache = iconCache;
+        this.launcherUpdateTime = getLauncherUpdateTime(context);
+    }
+
+    // Returns null when there is no usable snapshot
+    public List<AppItem> read() {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(file.openRead()));
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            // Color resource ids are only stable within one build of the launcher
+            if (in.readLong() != launcherUpdateTime) {
+                return null;
+            }
+
+            int count = in.readInt();
+            ArrayList<AppItem> apps = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                String packageName = in.readUTF();
+                String activityName = in.readUTF();
+                int colorRes = in.readInt();
+                String iconKey = in.readUTF();
+                long versionCode = in.readLong();
+                int tileColor = in.readInt();
+
+                AppItem app = new AppItem(name, packageName, R.drawable.round_phone_android_24, colorRes);
+                app.activityName = activityName;
+                app.iconKey = iconKey;
+                app.versionCode = versionCode;
+                iconCache.restoreTileColor(iconKey, tileColor);
+                apps.add(app);
+            }
+            return apps;
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            // Corrupt or truncated snapshot, rebuild from PackageManager
+            file.delete();
+            return null;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    public void write(List<AppItem> apps) {
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(launcherUpdateTime);
+            out.writeInt(apps.size());
+            for (AppItem app : apps) {
+                out.writeUTF(app.name);
+                out.writeUTF(app.packageName);
+                out.writeUTF(app.activityName != null ? app.activityName : "");
+                out.writeInt(app.colorRes);
+                out.writeUTF(app.iconKey != null ? app.iconKey : "");
+                out.writeLong(app.versionCode);
+                out.writeInt(iconCache.getTileColor(app.iconKey));
+            }
+            out.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+
+    private static long getLauncherUpdateTime(Context context) {
+        try {
+            return context.getPackageManager()
+                    .getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return 0;
+        }
+    }
+}
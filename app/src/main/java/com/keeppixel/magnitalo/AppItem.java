@@ -7,6 +7,14 @@ public class AppItem {
     public android.graphics.drawable.Drawable iconDrawable;
     public int colorRes;
 
+    // Catalog metadata, persisted in AppCatalogSnapshot
+    public String activityName;
+    public long versionCode;
+    public String iconKey;
+
+    // Computed once per catalog build, see AppSorter
+    public java.text.CollationKey sortKey;
+
     // Constructor for resource-based icons
     public AppItem(String name, String packageName, int iconRes, int colorRes) {
         this.name = name;
@@ -24,4 +32,13 @@ public class AppItem {
         this.colorRes = colorRes;
         this.iconRes = 0;
     }
+
+    // Identifies the launcher entry across catalog reloads
+    public String componentKey() {
+        return packageName + "/" + activityName;
+    }
+
+    public static String iconKeyFor(String packageName, long versionCode) {
+        return packageName + "_" + versionCode;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,248 @@
+package com.keeppixel.magnitalo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AppSearchIndex {
+
+    // Result scores, lower is better
+    private static final int SCORE_NAME_PREFIX = 0;
+    private static final int SCORE_WORD_PREFIX = 1;
+    private static final int SCORE_TYPO = 2;
+
+    private static final int MAX_RESULTS = 64;
+
+    // Every word start of every name, folded and sorted for prefix range lookups
+    private final ArrayList<Token> tokens = new ArrayList<>();
+
+    // Reused by the typo matcher so a keystroke allocates nothing per token
+    private int[] previousRow = new int[32];
+    private int[] currentRow = new int[32];
+
+    public void add(AppItem app) {
+        String name = app.name;
+        boolean wordStart = true;
+        int wordIndex = 0;
+        for (int i = 0; i < name.length(); i++) {
+            boolean letterOrDigit = Character.isLetterOrDigit(name.charAt(i));
+            if (letterOrDigit && wordStart) {
+                // The token runs to the end of the name so "google ma" still matches "Google Maps"
+                String key = fold(name.substring(i));
+                if (!key.isEmpty()) {
+                    insert(new Token(key, app, wordIndex == 0));
+                }
+                wordIndex++;
+            }
+            wordStart = !letterOrDigit;
+        }
+    }
+
+    public void addAll(List<AppItem> apps) {
+        for (AppItem app : apps) {
+            add(app);
+        }
+    }
+
+    public void remove(AppItem app) {
+        for (int i = tokens.size() - 1; i >= 0; i--) {
+            if (tokens.get(i).app == app) {
+                tokens.remove(i);
+            }
+        }
+    }
+
+    public void removePackage(String packageName) {
+        for (int i = tokens.size() - 1; i >= 0; i--) {
+            if (tokens.get(i).app.packageName.equals(packageName)) {
+                tokens.remove(i);
+            }
+        }
+    }
+
+    public void clear() {
+        tokens.clear();
+    }
+
+    public List<AppItem> search(String query) {
+        Map<AppItem, Integer> scores = new HashMap<>();
+        String folded = fold(query);
+        if (folded.isEmpty()) return new ArrayList<>();
+
+        collect(folded, scores);
+
+        // Nothing found: maybe typed with the wrong keyboard layout, e.g. "ntktuhfv" for "телеграм"
+        if (scores.isEmpty()) {
+            collect(fold(swapKeyboardLayout(query)), scores);
+        }
+
+        ArrayList<AppItem> results = new ArrayList<>(scores.keySet());
+        Collections.sort(results, (a, b) -> {
+            int byScore = Integer.compare(scores.get(a), scores.get(b));
+            return byScore != 0 ? byScore : AppSorter.COMPARATOR.compare(a, b);
+        });
+        if (results.size() > MAX_RESULTS) {
+            return new ArrayList<>(results.subList(0, MAX_RESULTS));
+        }
+        return results;
+    }
+
+    private void collect(String folded, Map<AppItem, Integer> scores) {
+        int start = lowerBound(folded);
+        int found = 0;
+        for (int i = start; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (!token.key.startsWith(folded)) break;
+            offer(scores, token.app, token.nameStart ? SCORE_NAME_PREFIX : SCORE_WORD_PREFIX);
+            found++;
+        }
+
+        // Typos are only looked for when exact prefixes are not enough
+        int maxEdits = folded.length() >= 6 ? 2 : folded.length() >= 3 ? 1 : 0;
+        if (maxEdits == 0 || found >= MAX_RESULTS) return;
+
+        // Assume the first letter is right, which keeps the scan to one range of the index
+        String first = folded.substring(0, 1);
+        for (int i = lowerBound(first); i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (token.key.charAt(0) != folded.charAt(0)) break;
+            if (prefixDistance(folded, token.key, maxEdits) <= maxEdits) {
+                offer(scores, token.app, SCORE_TYPO);
+            }
+        }
+    }
+
+    private static void offer(Map<AppItem, Integer> scores, AppItem app, int score) {
+        Integer current = scores.get(app);
+        if (current == null || score < current) {
+            scores.put(app, score);
+        }
+    }
+
+    // Smallest edit distance between the query and any prefix of the key, capped at maxEdits + 1
+    private int prefixDistance(String query, String key, int maxEdits) {
+        int columns = Math.min(key.length(), query.length() + maxEdits);
+        if (previousRow.length <= columns) {
+            previousRow = new int[columns + 1];
+            currentRow = new int[columns + 1];
+        }
+        int[] previous = previousRow;
+        int[] current = currentRow;
+
+        for (int j = 0; j <= columns; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= query.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            char q = query.charAt(i - 1);
+            for (int j = 1; j <= columns; j++) {
+                int cost = q == key.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                current[j] = value;
+                if (value < rowMin) rowMin = value;
+            }
+            if (rowMin > maxEdits) return maxEdits + 1;
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        int best = maxEdits + 1;
+        for (int j = 0; j <= columns; j++) {
+            if (previous[j] < best) best = previous[j];
+        }
+        return best;
+    }
+
+    private void insert(Token token) {
+        int index = lowerBound(token.key);
+        tokens.add(index, token);
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = tokens.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tokens.get(mid).key.compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Lowercase, transliterate Cyrillic to Latin and fold spellings that differ between the two
+    static String fold(String text) {
+        StringBuilder builder = new StringBuilder(text.length() + 4);
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (c >= 'а' && c <= 'я' || c == 'ё') {
+                builder.append(c == 'ё' ? "e" : CYRILLIC_TO_LATIN[c - 'а']);
+            } else if (c >= 'a' && c <= 'z') {
+                switch (c) {
+                    case 'x':
+                        builder.append("ks");
+                        break;
+                    case 'w':
+                        builder.append('v');
+                        break;
+                    case 'y':
+                    case 'j':
+                        builder.append('i');
+                        break;
+                    case 'q':
+                        builder.append('k');
+                        break;
+                    default:
+                        builder.append(c);
+                }
+            } else if (Character.isLetterOrDigit(c)) {
+                builder.append(c);
+            }
+            // Spaces and punctuation are dropped so multi-word queries match across words
+        }
+        return builder.toString();
+    }
+
+    static String swapKeyboardLayout(String text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int latin = LATIN_KEYS.indexOf(c);
+            if (latin >= 0) {
+                builder.append(CYRILLIC_KEYS.charAt(latin));
+                continue;
+            }
+            int cyrillic = CYRILLIC_KEYS.indexOf(c);
+            builder.append(cyrillic >= 0 ? LATIN_KEYS.charAt(cyrillic) : c);
+        }
+        return builder.toString();
+    }
+
+    // а б в г д е ж з и й к л м н о п р с т у ф х ц ч ш щ ъ ы ь э ю я
+    private static final String[] CYRILLIC_TO_LATIN = {
+            "a", "b", "v", "g", "d", "e", "zh", "z", "i", "i", "k", "l", "m", "n", "o", "p",
+            "r", "s", "t", "u", "f", "h", "ts", "ch", "sh", "sch", "", "i", "", "e", "iu", "ia"
+    };
+
+    // Same physical keys on the QWERTY and ЙЦУКЕН layouts
+    private static final String LATIN_KEYS = "qwertyuiop[]asdfghjkl;'zxcvbnm,.`";
+    private static final String CYRILLIC_KEYS = "йцукенгшщзхъфывапролджэячсмитьбюё";
+
+    private static class Token {
+        final String key;
+        final AppItem app;
+        final boolean nameStart;
+
+        Token(String key, AppItem app, boolean nameStart) {
+            this.key = key;
+            this.app = app;
+            this.nameStart = nameStart;
+        }
+    }
+}
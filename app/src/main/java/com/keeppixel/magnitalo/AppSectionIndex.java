@@ -0,0 +1,71 @@
+package com.keeppixel.magnitalo;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AppSectionIndex {
+
+    private static final String OTHER_SECTION = "#";
+
+    private final String[] sections;
+    private final int[] sectionPositions;
+    // Section of every adapter position, so lookups while scrolling are O(1)
+    private final int[] positionSections;
+
+    // Built once from a catalog already in collation order
+    public AppSectionIndex(List<AppItem> sortedApps) {
+        ArrayList<String> labels = new ArrayList<>();
+        Map<String, Integer> sectionByLabel = new HashMap<>();
+        int[] starts = new int[sortedApps.size()];
+        positionSections = new int[sortedApps.size()];
+
+        for (int i = 0; i < sortedApps.size(); i++) {
+            String label = sectionOf(sortedApps.get(i).name);
+            Integer section = sectionByLabel.get(label);
+            // A letter only opens a section once; if collation brings it back later it maps to that section
+            if (section == null) {
+                section = labels.size();
+                starts[section] = i;
+                labels.add(label);
+                sectionByLabel.put(label, section);
+            }
+            positionSections[i] = section;
+        }
+
+        sections = labels.toArray(new String[0]);
+        sectionPositions = Arrays.copyOf(starts, sections.length);
+    }
+
+    public String[] getSections() {
+        return sections;
+    }
+
+    public int getPositionForSection(int section) {
+        if (sections.length == 0) return 0;
+        return sectionPositions[Math.max(0, Math.min(section, sections.length - 1))];
+    }
+
+    public int getSectionForPosition(int position) {
+        if (positionSections.length == 0) return 0;
+        return positionSections[Math.max(0, Math.min(position, positionSections.length - 1))];
+    }
+
+    static String sectionOf(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isWhitespace(c)) continue;
+            if (!Character.isLetter(c)) return OTHER_SECTION;
+
+            // Strip accents so "É" shares the "E" section; "Ё" goes with "Е"
+            String base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            char letter = Character.toUpperCase(base.charAt(0));
+            if (letter == 'Ё') letter = 'Е';
+            return String.valueOf(letter);
+        }
+        return OTHER_SECTION;
+    }
+}
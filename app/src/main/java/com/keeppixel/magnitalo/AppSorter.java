@@ -0,0 +1,55 @@
+package com.keeppixel.magnitalo;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+public class AppSorter {
+
+    // Orders by the precomputed collation keys, names are only a fallback for unkeyed items
+    public static final Comparator<AppItem> COMPARATOR = (a, b) -> {
+        if (a.sortKey != null && b.sortKey != null) {
+            return a.sortKey.compareTo(b.sortKey);
+        }
+        return a.name.compareToIgnoreCase(b.name);
+    };
+
+    private final Collator collator;
+
+    public AppSorter() {
+        this(Locale.getDefault());
+    }
+
+    public AppSorter(Locale locale) {
+        collator = Collator.getInstance(locale);
+        // Ignore case but keep accents, so "ё" sorts next to "е" rather than after "я"
+        collator.setStrength(Collator.SECONDARY);
+    }
+
+    // Collator is not thread safe; keys themselves can be compared from any thread
+    public synchronized CollationKey keyFor(String label) {
+        return collator.getCollationKey(label);
+    }
+
+    public void assignKey(AppItem app) {
+        app.sortKey = keyFor(app.name);
+    }
+
+    // Position that keeps a sorted list sorted, after any equal entries
+    public static int insertionIndex(List<AppItem> sortedApps, AppItem app) {
+        int low = 0;
+        int high = sortedApps.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (COMPARATOR.compare(sortedApps.get(mid), app) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
+
@@ -0,0 +1,135 @@
+package com.keeppixel.magnitalo;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FrecencyRanker {
+
+    // A launch counts half as much after this long
+    private static final long HALF_LIFE_MS = 3L * 24 * 60 * 60 * 1000;
+    private static final double DECAY_PER_MS = Math.log(2) / HALF_LIFE_MS;
+
+    // How strongly launches at the current hour of day boost an app
+    private static final float TIME_OF_DAY_WEIGHT = 1.5f;
+    private static final int HOURS = 24;
+    // Hour histograms are halved once they reach this many launches, so routines can change
+    private static final int HOUR_HISTORY_LIMIT = 200;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    public static class Entry {
+        public final String packageName;
+        // Decayed launch score as of lastLaunchTime
+        public double score;
+        public long lastLaunchTime;
+        public int launchCount;
+        public final float[] hourCounts = new float[HOURS];
+        public float hourTotal;
+
+        public Entry(String packageName) {
+            this.packageName = packageName;
+        }
+    }
+
+    // O(1): the score is decayed lazily from the last launch, history is never rescanned
+    public void recordLaunch(String packageName, long now) {
+        Entry entry = entries.get(packageName);
+        if (entry == null) {
+            entry = new Entry(packageName);
+            entries.put(packageName, entry);
+        }
+
+        entry.score = decayedScore(entry, now) + 1.0;
+        entry.lastLaunchTime = now;
+        entry.launchCount++;
+
+        int hour = hourOf(now);
+        entry.hourCounts[hour] += 1f;
+        entry.hourTotal += 1f;
+        halveHoursIfFull(entry);
+    }
+
+    // Up to limit packages with the highest score, best first
+    public List<String> topPackages(int limit, long now) {
+        int hour = hourOf(now);
+        ArrayList<Entry> ranked = new ArrayList<>(entries.values());
+        ranked.sort((a, b) -> Double.compare(scoreOf(b, now, hour), scoreOf(a, now, hour)));
+
+        ArrayList<String> packages = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && packages.size() < limit; i++) {
+            packages.add(ranked.get(i).packageName);
+        }
+        return packages;
+    }
+
+    // Catalog ordered by score, apps that were never launched keep their alphabetical order
+    public List<AppItem> rank(List<AppItem> apps, long now) {
+        int hour = hourOf(now);
+        Map<String, Double> scores = new HashMap<>();
+        for (AppItem app : apps) {
+            if (!scores.containsKey(app.packageName)) {
+                Entry entry = entries.get(app.packageName);
+                scores.put(app.packageName, entry == null ? 0.0 : scoreOf(entry, now, hour));
+            }
+        }
+
+        ArrayList<AppItem> ranked = new ArrayList<>(apps);
+        // Stable sort keeps the incoming alphabetical order for ties
+        ranked.sort((a, b) -> Double.compare(scores.get(b.packageName), scores.get(a.packageName)));
+        return ranked;
+    }
+
+    public Collection<Entry> getEntries() {
+        return entries.values();
+    }
+
+    // Launches recorded since startup are merged with the restored history, neither is lost
+    public void restoreEntry(Entry entry) {
+        Entry current = entries.get(entry.packageName);
+        if (current == null) {
+            entries.put(entry.packageName, entry);
+            return;
+        }
+
+        long latest = Math.max(current.lastLaunchTime, entry.lastLaunchTime);
+        current.score = decayedScore(current, latest) + decayedScore(entry, latest);
+        current.lastLaunchTime = latest;
+        current.launchCount += entry.launchCount;
+        for (int i = 0; i < HOURS; i++) {
+            current.hourCounts[i] += entry.hourCounts[i];
+        }
+        current.hourTotal += entry.hourTotal;
+        halveHoursIfFull(current);
+    }
+
+    private static void halveHoursIfFull(Entry entry) {
+        while (entry.hourTotal >= HOUR_HISTORY_LIMIT) {
+            for (int i = 0; i < HOURS; i++) {
+                entry.hourCounts[i] /= 2f;
+            }
+            entry.hourTotal /= 2f;
+        }
+    }
+
+    private static double scoreOf(Entry entry, long now, int hour) {
+        double recency = decayedScore(entry, now);
+        if (recency <= 0) return 0;
+        float hourShare = entry.hourTotal > 0 ? entry.hourCounts[hour] / entry.hourTotal : 0f;
+        return recency * (1.0 + TIME_OF_DAY_WEIGHT * hourShare);
+    }
+
+    private static double decayedScore(Entry entry, long now) {
+        long elapsed = Math.max(0, now - entry.lastLaunchTime);
+        return entry.score * Math.exp(-DECAY_PER_MS * elapsed);
+    }
+
+    private static int hourOf(long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        return calendar.get(Calendar.HOUR_OF_DAY);
+    }
+}
@@ -0,0 +1,254 @@
+package com.keeppixel.magnitalo;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.LruCache;
+import android.widget.ImageView;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IconCache {
+
+    private static final String DISK_DIR = "normalized_icons";
+    // Corners of low-memory icons when no color could be extracted
+    private static final int FALLBACK_TILE_COLOR = 0xFF636366;
+
+    private final PackageManager packageManager;
+    private final File diskDir;
+    private final int iconSize;
+    // RGB_565 halves the cache on devices that declare themselves low on RAM
+    private final boolean lowMemory;
+    private final LruCache<String, Bitmap> memoryCache;
+    // Tile colors by icon key; a few bytes each, so they outlive bitmap eviction
+    private final Map<String, Integer> tileColors = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    // Prefetches run behind visible loads, on their own low-priority thread
+    private final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor(runnable ->
+            new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "icon-prefetch"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Statistics
+    private final AtomicInteger memoryHits = new AtomicInteger();
+    private final AtomicInteger diskHits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    public IconCache(Context context) {
+        this.packageManager = context.getPackageManager();
+        this.diskDir = new File(context.getCacheDir(), DISK_DIR);
+        this.iconSize = context.getResources().getDimensionPixelSize(R.dimen.app_icon_raster_size);
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        this.lowMemory = activityManager != null && activityManager.isLowRamDevice();
+
+        // 1/16 of the heap is enough for several hundred cell-sized icons
+        int maxBytes = (int) Math.min(Runtime.getRuntime().maxMemory() / 16, Integer.MAX_VALUE);
+        this.memoryCache = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+    }
+
+    public int getIconSize() {
+        return iconSize;
+    }
+
+    // Memory tier only, safe to call from onBindViewHolder; counted in the stats as a bind
+    public Bitmap getCached(String key) {
+        Bitmap bitmap = peek(key);
+        if (bitmap != null) {
+            memoryHits.incrementAndGet();
+        }
+        return bitmap;
+    }
+
+    // Memory tier without touching the stats, for presence checks and internal lookups
+    public Bitmap peek(String key) {
+        if (key == null) return null;
+        return memoryCache.get(key);
+    }
+
+    // Tile color extracted from the icon, 0 until the icon has been loaded once
+    public int getTileColor(String key) {
+        if (key == null) return 0;
+        Integer color = tileColors.get(key);
+        return color != null ? color : 0;
+    }
+
+    // Colors restored from the catalog snapshot, so tiles are right before icons decode
+    public void restoreTileColor(String key, int color) {
+        if (key != null && color != 0) {
+            tileColors.putIfAbsent(key, color);
+        }
+    }
+
+    // Memory, then disk, then PackageManager. Must not be called on the main thread.
+    public Bitmap getIcon(String packageName, long versionCode) {
+        String key = AppItem.iconKeyFor(packageName, versionCode);
+        Bitmap bitmap = peek(key);
+        if (bitmap != null) return bitmap;
+
+        File file = diskFile(key);
+        // Stored icons may carry the legacy backing, so they are used only once their color is known
+        if (file.exists() && tileColors.containsKey(key)) {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inPreferredConfig = lowMemory ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+            bitmap = BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+            if (bitmap != null) {
+                diskHits.incrementAndGet();
+                memoryCache.put(key, bitmap);
+                return bitmap;
+            }
+        }
+
+        misses.incrementAndGet();
+        try {
+            bitmap = rasterize(key, packageManager.getApplicationIcon(packageName));
+        } catch (PackageManager.NameNotFoundException e) {
+            return null;
+        }
+        memoryCache.put(key, bitmap);
+        writeToDisk(file, bitmap);
+        return bitmap;
+    }
+
+    public void loadInto(ImageView view, String packageName, long versionCode) {
+        loadInto(view, packageName, versionCode, null);
+    }
+
+    // tileTarget, if given, receives the tile color together with the icon
+    public void loadInto(ImageView view, String packageName, long versionCode, TileColorTarget tileTarget) {
+        String key = AppItem.iconKeyFor(packageName, versionCode);
+        view.setTag(key);
+        executor.execute(() -> {
+            Bitmap bitmap = getIcon(packageName, versionCode);
+            if (bitmap == null) return;
+            int tileColor = getTileColor(key);
+            mainHandler.post(() -> {
+                // The view may have been rebound to another app meanwhile
+                if (key.equals(view.getTag())) {
+                    view.setImageBitmap(bitmap);
+                    view.setColorFilter(null);
+                    if (tileTarget != null && tileColor != 0) {
+                        tileTarget.setTileColor(tileColor);
+                    }
+                }
+            });
+        });
+    }
+
+    public interface TileColorTarget {
+        void setTileColor(int color);
+    }
+
+    // Warms the memory tier ahead of binding; the returned future can be cancelled
+    public Future<?> prefetch(String packageName, long versionCode) {
+        return prefetchExecutor.submit(() -> {
+            getIcon(packageName, versionCode);
+        });
+    }
+
+    public void removePackage(String packageName) {
+        String prefix = packageName + "_";
+        for (String key : memoryCache.snapshot().keySet()) {
+            if (isKeyOfPackage(key, prefix)) {
+                memoryCache.remove(key);
+            }
+        }
+        for (String key : tileColors.keySet()) {
+            if (isKeyOfPackage(key, prefix)) {
+                tileColors.remove(key);
+            }
+        }
+        File[] files = diskDir.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            if (isKeyOfPackage(file.getName(), prefix)) {
+                file.delete();
+            }
+        }
+    }
+
+    // "com.foo_" must not match icons of "com.foo_bar", so only a version number may follow
+    private static boolean isKeyOfPackage(String name, String prefix) {
+        if (!name.startsWith(prefix) || name.length() == prefix.length()) return false;
+        char next = name.charAt(prefix.length());
+        return Character.isDigit(next) || next == '-';
+    }
+
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            memoryCache.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            memoryCache.trimToSize(memoryCache.maxSize() / 2);
+        }
+    }
+
+    public String getStats() {
+        int memory = memoryHits.get();
+        int disk = diskHits.get();
+        int miss = misses.get();
+        int total = memory + disk + miss;
+        float hitRate = total == 0 ? 0f : (memory + disk) * 100f / total;
+        return String.format(Locale.US, "icons: %d memory hits, %d disk hits, %d misses (%.1f%% hit rate), %d KB in memory",
+                memory, disk, miss, hitRate, memoryCache.size() / 1024);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        prefetchExecutor.shutdownNow();
+    }
+
+    private Bitmap rasterize(String key, Drawable drawable) {
+        // Render once at the exact cell size and shape so views never scale or clip on draw
+        IconNormalizer.Result icon = IconNormalizer.normalize(drawable, iconSize);
+        // Extracted once per icon version, on the thread that rendered it
+        int color = icon.tileColor;
+        if (color != 0) {
+            tileColors.put(key, color);
+        }
+        if (!lowMemory) return icon.bitmap;
+
+        Bitmap flattened = IconNormalizer.flatten(icon.bitmap, color != 0 ? color : FALLBACK_TILE_COLOR);
+        icon.bitmap.recycle();
+        return flattened;
+    }
+
+    private File diskFile(String key) {
+        return new File(diskDir, key + ".png");
+    }
+
+    private void writeToDisk(File file, Bitmap bitmap) {
+        if (!diskDir.exists() && !diskDir.mkdirs()) return;
+        // Visible loads and prefetches may write the same icon concurrently
+        File temp = new File(file.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+        } catch (IOException e) {
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.keeppixel.magnitalo;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+public final class IconColorExtractor {
+
+    // 4 bits per channel, 4096 buckets
+    private static final int BUCKET_BITS = 4;
+    private static final int BUCKETS = 1 << (BUCKET_BITS * 3);
+    // Roughly 32x32 samples regardless of the raster size
+    private static final int SAMPLES_PER_SIDE = 32;
+    // Saturated pixels count up to this much more than grey ones
+    private static final float SATURATION_BOOST = 3f;
+
+    // Tiles stay readable under white labels and never turn pure white or black
+    private static final float MIN_VALUE = 0.3f;
+    private static final float MAX_VALUE = 0.85f;
+
+    private IconColorExtractor() {
+    }
+
+    // Vibrant dominant color of the opaque pixels, or 0 for a fully transparent icon.
+    // Runs on the icon loading threads, never at bind time.
+    public static int extract(Bitmap icon) {
+        int width = icon.getWidth();
+        int height = icon.getHeight();
+        if (width == 0 || height == 0) return 0;
+
+        int[] pixels = new int[width * height];
+        icon.getPixels(pixels, 0, width, 0, 0, width, height);
+
+        float[] weights = new float[BUCKETS];
+        long[] red = new long[BUCKETS];
+        long[] green = new long[BUCKETS];
+        long[] blue = new long[BUCKETS];
+        int[] counts = new int[BUCKETS];
+        float[] hsv = new float[3];
+
+        int stepX = Math.max(1, width / SAMPLES_PER_SIDE);
+        int stepY = Math.max(1, height / SAMPLES_PER_SIDE);
+        int best = -1;
+        for (int y = 0; y < height; y += stepY) {
+            for (int x = 0; x < width; x += stepX) {
+                int pixel = pixels[y * width + x];
+                if (Color.alpha(pixel) < 128) continue;
+
+                int r = Color.red(pixel);
+                int g = Color.green(pixel);
+                int b = Color.blue(pixel);
+                int shift = 8 - BUCKET_BITS;
+                int bucket = ((r >> shift) << (BUCKET_BITS * 2)) | ((g >> shift) << BUCKET_BITS) | (b >> shift);
+
+                Color.RGBToHSV(r, g, b, hsv);
+                // Dark pixels carry no hue even when their saturation is high
+                weights[bucket] += 1f + SATURATION_BOOST * hsv[1] * hsv[2];
+                red[bucket] += r;
+                green[bucket] += g;
+                blue[bucket] += b;
+                counts[bucket]++;
+                if (best < 0 || weights[bucket] > weights[best]) {
+                    best = bucket;
+                }
+            }
+        }
+        if (best < 0) return 0;
+
+        int count = counts[best];
+        Color.RGBToHSV((int) (red[best] / count), (int) (green[best] / count), (int) (blue[best] / count), hsv);
+        hsv[2] = Math.max(MIN_VALUE, Math.min(MAX_VALUE, hsv[2]));
+        return Color.HSVToColor(hsv);
+    }
+}
@@ -0,0 +1,112 @@
+package com.keeppixel.magnitalo;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Path;
+import android.graphics.PorterDuff;
+import android.graphics.RectF;
+import android.graphics.drawable.AdaptiveIconDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+
+public final class IconNormalizer {
+
+    // Transparent margin around the shape, so every icon has the same visual weight
+    private static final float PADDING = 0.04f;
+    // Corner radius of the rounded square, relative to the shape size
+    private static final float CORNER_RADIUS = 0.22f;
+    // Legacy icons are inset inside the shape so their own outline stays visible
+    private static final float LEGACY_INSET = 0.14f;
+    // Adaptive layers are 108dp around a 72dp viewport, so each side extends by a quarter
+    private static final float ADAPTIVE_EXTRA = 0.25f;
+    private static final int LEGACY_BACKING = Color.WHITE;
+
+    private IconNormalizer() {
+    }
+
+    public static class Result {
+        public final Bitmap bitmap;
+        // Dominant color of the icon itself, never of the legacy backing; 0 if it has none
+        public final int tileColor;
+
+        Result(Bitmap bitmap, int tileColor) {
+            this.bitmap = bitmap;
+            this.tileColor = tileColor;
+        }
+    }
+
+    // Renders any icon once into a size x size rounded square, ready to be blitted as is
+    public static Result normalize(Drawable drawable, int size) {
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+
+        float padding = size * PADDING;
+        RectF shape = new RectF(padding, padding, size - padding, size - padding);
+        float radius = shape.width() * CORNER_RADIUS;
+        Path mask = new Path();
+        mask.addRoundRect(shape, radius, radius, Path.Direction.CW);
+
+        int tileColor;
+        canvas.save();
+        canvas.clipPath(mask);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && drawable instanceof AdaptiveIconDrawable) {
+            drawAdaptive(canvas, (AdaptiveIconDrawable) drawable, shape);
+            tileColor = IconColorExtractor.extract(bitmap);
+        } else {
+            drawLegacy(canvas, drawable, shape);
+            // Taken while the icon is still transparent, the backing would outweigh it otherwise
+            tileColor = IconColorExtractor.extract(bitmap);
+            canvas.drawColor(LEGACY_BACKING, PorterDuff.Mode.DST_OVER);
+        }
+        canvas.restore();
+        return new Result(bitmap, tileColor);
+    }
+
+    // Low-memory variant without alpha: corners take the tile color, so they vanish on the tile
+    public static Bitmap flatten(Bitmap icon, int tileColor) {
+        Bitmap bitmap = Bitmap.createBitmap(icon.getWidth(), icon.getHeight(), Bitmap.Config.RGB_565);
+        Canvas canvas = new Canvas(bitmap);
+        canvas.drawColor(tileColor);
+        canvas.drawBitmap(icon, 0, 0, null);
+        return bitmap;
+    }
+
+    private static void drawAdaptive(Canvas canvas, AdaptiveIconDrawable drawable, RectF shape) {
+        float extraX = shape.width() * ADAPTIVE_EXTRA;
+        float extraY = shape.height() * ADAPTIVE_EXTRA;
+        int left = Math.round(shape.left - extraX);
+        int top = Math.round(shape.top - extraY);
+        int right = Math.round(shape.right + extraX);
+        int bottom = Math.round(shape.bottom + extraY);
+
+        // Layers are drawn directly, the system mask of the drawable is replaced by ours
+        Drawable background = drawable.getBackground();
+        if (background != null) {
+            background.setBounds(left, top, right, bottom);
+            background.draw(canvas);
+        }
+        Drawable foreground = drawable.getForeground();
+        if (foreground != null) {
+            foreground.setBounds(left, top, right, bottom);
+            foreground.draw(canvas);
+        }
+    }
+
+    // Draws the icon only, the backing goes behind it afterwards
+    private static void drawLegacy(Canvas canvas, Drawable drawable, RectF shape) {
+        float inset = shape.width() * LEGACY_INSET;
+        float available = shape.width() - 2 * inset;
+        // Keep the aspect ratio of non-square icons
+        int width = drawable.getIntrinsicWidth();
+        int height = drawable.getIntrinsicHeight();
+        float scale = width > 0 && height > 0 ? available / Math.max(width, height) : 0f;
+        float drawWidth = scale > 0 ? width * scale : available;
+        float drawHeight = scale > 0 ? height * scale : available;
+
+        int left = Math.round(shape.centerX() - drawWidth / 2f);
+        int top = Math.round(shape.centerY() - drawHeight / 2f);
+        drawable.setBounds(left, top, Math.round(left + drawWidth), Math.round(top + drawHeight));
+        drawable.draw(canvas);
+    }
+}
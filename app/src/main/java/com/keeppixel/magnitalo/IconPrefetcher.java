@@ -0,0 +1,98 @@
+package com.keeppixel.magnitalo;
+
+import android.view.View;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+public class IconPrefetcher extends RecyclerView.OnScrollListener {
+
+    // Rows decoded ahead of the viewport when scrolling slowly
+    private static final int MIN_ROWS_AHEAD = 2;
+    // Upper bound for fast flings, so one fling cannot queue the whole catalog
+    private static final int MAX_ROWS_AHEAD = 8;
+
+    private final IconCache iconCache;
+    private final AllAppsAdapter adapter;
+
+    // Pending prefetches by adapter position
+    private final Map<Integer, Future<?>> pending = new HashMap<>();
+    private int lastDirection;
+
+    public IconPrefetcher(IconCache iconCache, AllAppsAdapter adapter) {
+        this.iconCache = iconCache;
+        this.adapter = adapter;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        if (dy == 0) return;
+        if (!(recyclerView.getLayoutManager() instanceof GridLayoutManager)) return;
+        GridLayoutManager layoutManager = (GridLayoutManager) recyclerView.getLayoutManager();
+
+        int direction = dy > 0 ? 1 : -1;
+        if (direction != lastDirection) {
+            // Everything queued for the other direction is now behind the user
+            cancelAll();
+            lastDirection = direction;
+        }
+
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION || last == RecyclerView.NO_POSITION) return;
+
+        int spanCount = layoutManager.getSpanCount();
+        int itemCount = adapter.getItemCount();
+        int rowsAhead = rowsAhead(layoutManager, Math.abs(dy));
+
+        int windowStart;
+        int windowEnd;
+        if (direction > 0) {
+            windowStart = last + 1;
+            windowEnd = Math.min(itemCount - 1, last + rowsAhead * spanCount);
+        } else {
+            windowStart = Math.max(0, first - rowsAhead * spanCount);
+            windowEnd = first - 1;
+        }
+
+        // Drop finished prefetches and those that fell out of the window
+        Iterator<Map.Entry<Integer, Future<?>>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, Future<?>> entry = iterator.next();
+            int position = entry.getKey();
+            if (entry.getValue().isDone()) {
+                iterator.remove();
+            } else if (position < windowStart || position > windowEnd) {
+                entry.getValue().cancel(false);
+                iterator.remove();
+            }
+        }
+
+        for (int position = windowStart; position <= windowEnd; position++) {
+            if (pending.containsKey(position)) continue;
+            AppItem app = adapter.getApp(position);
+            if (app.iconKey == null || iconCache.peek(app.iconKey) != null) continue;
+            pending.put(position, iconCache.prefetch(app.packageName, app.versionCode));
+        }
+    }
+
+    public void cancelAll() {
+        for (Future<?> future : pending.values()) {
+            future.cancel(false);
+        }
+        pending.clear();
+    }
+
+    private int rowsAhead(GridLayoutManager layoutManager, int distance) {
+        // Scale with the distance scrolled in this frame, measured in rows
+        View child = layoutManager.getChildAt(0);
+        int rowHeight = child != null ? child.getHeight() : 0;
+        if (rowHeight <= 0) return MIN_ROWS_AHEAD;
+        int rowsPerFrame = distance / rowHeight;
+        return Math.max(MIN_ROWS_AHEAD, Math.min(MAX_ROWS_AHEAD, MIN_ROWS_AHEAD + rowsPerFrame * 4));
+    }
+}
@@ -0,0 +1,128 @@
+package com.keeppixel.magnitalo;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.AtomicFile;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class LaunchHistoryStore {
+
+    private static final String FILE_NAME = "launch_history.bin";
+    private static final int MAGIC = 0x4D4C4853; // "MLHS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HOURS = 24;
+
+    private final AtomicFile file;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public interface Callback {
+        void onLoaded(List<FrecencyRanker.Entry> entries);
+    }
+
+    public LaunchHistoryStore(Context context) {
+        this.file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+    }
+
+    // Only the aggregated scores are stored, so startup never replays individual launches
+    public void load(Callback callback) {
+        executor.execute(() -> {
+            List<FrecencyRanker.Entry> entries = read();
+            mainHandler.post(() -> callback.onLoaded(entries));
+        });
+    }
+
+    public void save(Collection<FrecencyRanker.Entry> entries) {
+        // Copy on the calling thread, the ranker keeps mutating its entries
+        ArrayList<FrecencyRanker.Entry> copy = new ArrayList<>(entries.size());
+        for (FrecencyRanker.Entry entry : entries) {
+            FrecencyRanker.Entry snapshot = new FrecencyRanker.Entry(entry.packageName);
+            snapshot.score = entry.score;
+            snapshot.lastLaunchTime = entry.lastLaunchTime;
+            snapshot.launchCount = entry.launchCount;
+            System.arraycopy(entry.hourCounts, 0, snapshot.hourCounts, 0, HOURS);
+            snapshot.hourTotal = entry.hourTotal;
+            copy.add(snapshot);
+        }
+        executor.execute(() -> write(copy));
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private List<FrecencyRanker.Entry> read() {
+        ArrayList<FrecencyRanker.Entry> entries = new ArrayList<>();
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(file.openRead()));
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return entries;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                FrecencyRanker.Entry entry = new FrecencyRanker.Entry(in.readUTF());
+                entry.score = in.readDouble();
+                entry.lastLaunchTime = in.readLong();
+                entry.launchCount = in.readInt();
+                for (int hour = 0; hour < HOURS; hour++) {
+                    entry.hourCounts[hour] = in.readFloat();
+                    entry.hourTotal += entry.hourCounts[hour];
+                }
+                entries.add(entry);
+            }
+        } catch (FileNotFoundException e) {
+            // No launches recorded yet
+        } catch (IOException e) {
+            file.delete();
+            entries.clear();
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+        return entries;
+    }
+
+    private void write(List<FrecencyRanker.Entry> entries) {
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(entries.size());
+            for (FrecencyRanker.Entry entry : entries) {
+                out.writeUTF(entry.packageName);
+                out.writeDouble(entry.score);
+                out.writeLong(entry.lastLaunchTime);
+                out.writeInt(entry.launchCount);
+                for (int hour = 0; hour < HOURS; hour++) {
+                    out.writeFloat(entry.hourCounts[hour]);
+                }
+            }
+            out.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+}
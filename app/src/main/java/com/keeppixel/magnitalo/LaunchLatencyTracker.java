@@ -0,0 +1,222 @@
+package com.keeppixel.magnitalo;
+
+import android.app.usage.UsageEvents;
+import android.app.usage.UsageStatsManager;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class LaunchLatencyTracker {
+
+    // Taps that did not bring anything to the foreground within this time are dropped
+    private static final long MAX_LATENCY_MS = 30_000;
+    private static final String DUMP_FILE = "launch_latency.txt";
+    private static final String ALL_PACKAGES = "(all)";
+
+    private final Context context;
+    private final UsageStatsManager usageStatsManager;
+    private final String ownPackage;
+    // All state below is confined to this thread
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final List<PendingLaunch> pending = new ArrayList<>();
+    private final Map<String, Histogram> histograms = new LinkedHashMap<>();
+
+    public interface ReportCallback {
+        void onReport(String report);
+    }
+
+    public interface DumpCallback {
+        // null if the file could not be written
+        void onDumped(File file);
+    }
+
+    private static class PendingLaunch {
+        final String source;
+        // null when the target is only known to the system, e.g. an implicit intent
+        final String packageName;
+        final long tapTime;
+
+        PendingLaunch(String source, String packageName, long tapTime) {
+            this.source = source;
+            this.packageName = packageName;
+            this.tapTime = tapTime;
+        }
+    }
+
+    public LaunchLatencyTracker(Context context) {
+        this.context = context.getApplicationContext();
+        this.usageStatsManager = (UsageStatsManager) context.getSystemService(Context.USAGE_STATS_SERVICE);
+        this.ownPackage = context.getPackageName();
+    }
+
+    // Call first thing on a tap; the timestamp matches the clock of UsageEvents
+    public void onLaunchRequested(String source, String packageName) {
+        long tapTime = System.currentTimeMillis();
+        executor.execute(() -> pending.add(new PendingLaunch(source, packageName, tapTime)));
+    }
+
+    // Matches pending taps against the foreground events recorded since; call when the launcher is back
+    public void collect() {
+        executor.execute(this::matchPending);
+    }
+
+    public void report(ReportCallback callback) {
+        executor.execute(() -> {
+            matchPending();
+            String report = buildReport();
+            mainHandler.post(() -> callback.onReport(report));
+        });
+    }
+
+    public void dump(DumpCallback callback) {
+        executor.execute(() -> {
+            matchPending();
+            File dir = context.getExternalFilesDir(null);
+            File file = new File(dir != null ? dir : context.getFilesDir(), DUMP_FILE);
+            File result = file;
+            try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+                out.write(buildReport());
+            } catch (IOException e) {
+                result = null;
+            }
+            File dumped = result;
+            mainHandler.post(() -> callback.onDumped(dumped));
+        });
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @SuppressWarnings("deprecation")
+    private void matchPending() {
+        if (pending.isEmpty() || usageStatsManager == null) return;
+        long now = System.currentTimeMillis();
+        long from = pending.get(0).tapTime;
+
+        // Requires usage access; without it the query is simply empty
+        UsageEvents events = usageStatsManager.queryEvents(from, now);
+        UsageEvents.Event event = new UsageEvents.Event();
+        while (events != null && events.hasNextEvent() && !pending.isEmpty()) {
+            events.getNextEvent(event);
+            // ACTIVITY_RESUMED shares its value with MOVE_TO_FOREGROUND on older releases
+            if (event.getEventType() != UsageEvents.Event.MOVE_TO_FOREGROUND) continue;
+            String packageName = event.getPackageName();
+            if (ownPackage.equals(packageName)) continue;
+
+            // Oldest matching tap first, pending launches are in tap order
+            for (Iterator<PendingLaunch> it = pending.iterator(); it.hasNext(); ) {
+                PendingLaunch launch = it.next();
+                long latency = event.getTimeStamp() - launch.tapTime;
+                if (latency < 0 || latency > MAX_LATENCY_MS) continue;
+                if (launch.packageName != null && !launch.packageName.equals(packageName)) continue;
+                histogramFor(packageName).record(latency);
+                histogramFor(ALL_PACKAGES).record(latency);
+                histogramFor("via " + launch.source).record(latency);
+                it.remove();
+                break;
+            }
+        }
+
+        // Taps that never reached the foreground would block the query window forever
+        for (Iterator<PendingLaunch> it = pending.iterator(); it.hasNext(); ) {
+            if (now - it.next().tapTime > MAX_LATENCY_MS) {
+                it.remove();
+            }
+        }
+    }
+
+    private Histogram histogramFor(String key) {
+        Histogram histogram = histograms.get(key);
+        if (histogram == null) {
+            histogram = new Histogram();
+            histograms.put(key, histogram);
+        }
+        return histogram;
+    }
+
+    private String buildReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("Launch latency, tap to activity resume (ms)\n");
+        report.append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US).format(new Date()))
+                .append(", uptime ").append(SystemClock.elapsedRealtime() / 1000).append(" s\n\n");
+        if (histograms.isEmpty()) {
+            report.append("No launches recorded yet\n");
+            return report.toString();
+        }
+        report.append(String.format(Locale.US, "%-36s %5s %6s %6s %6s %6s%n", "target", "n", "p50", "p95", "p99", "max"));
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram h = entry.getValue();
+            report.append(String.format(Locale.US, "%-36s %5d %6d %6d %6d %6d%n", entry.getKey(), h.count,
+                    h.percentile(0.50), h.percentile(0.95), h.percentile(0.99), h.max));
+        }
+        return report.toString();
+    }
+
+    // Log-spaced buckets, each 15% wider than the previous, from 10 ms up to MAX_LATENCY_MS
+    static class Histogram {
+        private static final long[] BOUNDS = buildBounds();
+
+        final int[] counts = new int[BOUNDS.length];
+        int count;
+        long max;
+
+        private static long[] buildBounds() {
+            ArrayList<Long> bounds = new ArrayList<>();
+            double bound = 10;
+            while (bound < MAX_LATENCY_MS) {
+                bounds.add((long) Math.ceil(bound));
+                bound *= 1.15;
+            }
+            bounds.add(MAX_LATENCY_MS);
+            long[] result = new long[bounds.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = bounds.get(i);
+            }
+            return result;
+        }
+
+        void record(long latency) {
+            int bucket = 0;
+            while (bucket < BOUNDS.length - 1 && latency > BOUNDS[bucket]) {
+                bucket++;
+            }
+            counts[bucket]++;
+            count++;
+            max = Math.max(max, latency);
+        }
+
+        // Upper bound of the bucket holding the given quantile, never above the largest sample
+        long percentile(double quantile) {
+            if (count == 0) return 0;
+            long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(BOUNDS[i], max);
+                }
+            }
+            return max;
+        }
+    }
+}
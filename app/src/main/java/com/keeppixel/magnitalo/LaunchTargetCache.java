@@ -0,0 +1,198 @@
+package com.keeppixel.magnitalo;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.os.Handler;
+import android.os.Looper;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class LaunchTargetCache {
+
+    // Bottom bar slots, resolved in this order
+    public static final String[] SLOTS = {"phone", "messages", "music", "maps", "settings", "camera"};
+
+    private static final int LAUNCH_FLAGS = Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_RESET_TASK_IF_NEEDED;
+
+    private final PackageManager packageManager;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Main thread only. Catalog entries already carry their activity, so no lookups are needed.
+    private final Map<String, ComponentName> catalogTargets = new HashMap<>();
+    // Main thread only, replaced as a whole after each background resolve
+    private Map<String, Intent> slotTargets = new HashMap<>();
+    private int slotGeneration;
+
+    public LaunchTargetCache(Context context) {
+        this.packageManager = context.getPackageManager();
+    }
+
+    public void setCatalog(List<AppItem> apps) {
+        catalogTargets.clear();
+        addApps(apps);
+    }
+
+    public void addApps(List<AppItem> apps) {
+        for (AppItem app : apps) {
+            if (app.activityName == null || app.activityName.isEmpty()) continue;
+            // Catalog order is stable, so a package with several entries always opens the same one
+            if (!catalogTargets.containsKey(app.packageName)) {
+                catalogTargets.put(app.packageName, new ComponentName(app.packageName, app.activityName));
+            }
+        }
+    }
+
+    // Ready to start, or null if the package is not in the catalog
+    public Intent getLaunchIntent(String packageName) {
+        ComponentName component = catalogTargets.get(packageName);
+        if (component == null) return null;
+        Intent intent = new Intent(Intent.ACTION_MAIN);
+        intent.addCategory(Intent.CATEGORY_LAUNCHER);
+        intent.setComponent(component);
+        intent.addFlags(LAUNCH_FLAGS);
+        return intent;
+    }
+
+    // Resolves a package outside the catalog ahead of its launch; catalog packages need nothing
+    public void warm(String packageName) {
+        if (catalogTargets.containsKey(packageName)) return;
+        executor.execute(() -> {
+            Intent intent = packageManager.getLaunchIntentForPackage(packageName);
+            if (intent == null || intent.getComponent() == null) return;
+            ComponentName component = intent.getComponent();
+            mainHandler.post(() -> {
+                if (!catalogTargets.containsKey(packageName)) {
+                    catalogTargets.put(packageName, component);
+                }
+            });
+        });
+    }
+
+    // Drops targets of a package whose activity could not be started, e.g. renamed by an update
+    public void invalidate(String packageName) {
+        catalogTargets.remove(packageName);
+        Map<String, Intent> remaining = new HashMap<>(slotTargets);
+        boolean changed = false;
+        for (String slot : SLOTS) {
+            Intent intent = remaining.get(slot);
+            if (intent != null && packageName.equals(packageOf(intent))) {
+                remaining.remove(slot);
+                changed = true;
+            }
+        }
+        if (changed) {
+            slotTargets = remaining;
+            refreshSlots();
+        }
+    }
+
+    // Resolved target of a bottom bar slot, or null before the first resolve has finished
+    public Intent getSlotIntent(String slot) {
+        Intent intent = slotTargets.get(slot);
+        return intent != null ? new Intent(intent) : null;
+    }
+
+    // Resolves all slots off the main thread; call again whenever packages change
+    public void refreshSlots() {
+        int token = ++slotGeneration;
+        executor.execute(() -> {
+            Map<String, Intent> resolved = new HashMap<>();
+            for (String slot : SLOTS) {
+                Intent intent = resolveSlot(slot);
+                if (intent != null) {
+                    resolved.put(slot, intent);
+                }
+            }
+            mainHandler.post(() -> {
+                // A newer refresh may already be on its way
+                if (token == slotGeneration) {
+                    slotTargets = resolved;
+                }
+            });
+        });
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Intent resolveSlot(String slot) {
+        // The preferred app wins when installed
+        Intent intent = packageManager.getLaunchIntentForPackage(preferredPackageFor(slot));
+        if (intent != null) {
+            intent.addFlags(LAUNCH_FLAGS);
+            return intent;
+        }
+
+        intent = systemIntentFor(slot);
+        if (intent == null) return null;
+        intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        ResolveInfo info = packageManager.resolveActivity(intent, PackageManager.MATCH_DEFAULT_ONLY);
+        // Pin the default handler; without one "android" answers with the chooser, so stay implicit
+        if (info != null && info.activityInfo != null && !"android".equals(info.activityInfo.packageName)) {
+            intent.setComponent(new ComponentName(info.activityInfo.packageName, info.activityInfo.name));
+        }
+        return intent;
+    }
+
+    public static String packageOf(Intent intent) {
+        return intent.getComponent() != null ? intent.getComponent().getPackageName() : intent.getPackage();
+    }
+
+    // Implicit fallback for a slot, usable even before the slots have been resolved
+    public static Intent systemIntentFor(String slot) {
+        Intent intent = new Intent();
+        switch (slot.toLowerCase()) {
+            case "phone":
+                intent.setAction(Intent.ACTION_DIAL);
+                break;
+            case "messages":
+                intent.setAction(Intent.ACTION_MAIN);
+                intent.addCategory(Intent.CATEGORY_APP_MESSAGING);
+                break;
+            case "music":
+                intent.setAction(Intent.ACTION_MAIN);
+                intent.addCategory(Intent.CATEGORY_APP_MUSIC);
+                break;
+            case "maps":
+                intent.setAction(Intent.ACTION_MAIN);
+                intent.addCategory(Intent.CATEGORY_APP_MAPS);
+                break;
+            case "settings":
+                intent.setAction(android.provider.Settings.ACTION_SETTINGS);
+                break;
+            case "camera":
+                intent.setAction(android.provider.MediaStore.ACTION_IMAGE_CAPTURE);
+                break;
+            default:
+                return null;
+        }
+        return intent;
+    }
+
+    private static String preferredPackageFor(String slot) {
+        switch (slot.toLowerCase()) {
+            case "phone":
+                return "com.android.dialer";
+            case "messages":
+                return "com.android.mms";
+            case "music":
+                return "com.android.music";
+            case "maps":
+                return "com.google.android.apps.maps";
+            case "settings":
+                return "com.android.settings";
+            case "camera":
+                return "com.android.camera2";
+            default:
+                return "com.android.settings"; // Fallback
+        }
+    }
+}
@@ -4,31 +4,32 @@ import android.animation.ObjectAnimator;
 import android.animation.ValueAnimator;
 import android.app.ActivityManager;
 import android.app.AppOpsManager;
-import android.app.usage.UsageStats;
-import android.app.usage.UsageStatsManager;
+import android.content.ActivityNotFoundException;
 import android.content.Context;
 import android.content.Intent;
-import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
-import android.content.pm.ResolveInfo;
 import android.content.res.Configuration;
-import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.provider.Settings;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.DisplayMetrics;
+import android.view.Menu;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.WindowInsets;
 import android.view.WindowInsetsController;
 import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.inputmethod.EditorInfo;
+import android.widget.EditText;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
+import android.widget.PopupMenu;
 import android.widget.TextView;
 
-import androidx.annotation.RequiresApi;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -36,10 +37,13 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 
 public class MainActivity extends AppCompatActivity {
 
@@ -65,6 +69,30 @@ public class MainActivity extends AppCompatActivity {
     private ArrayList<CallItem> recentCalls;
     private AllAppsAdapter allAppsAdapter;
     private ArrayList<AppItem> allApps;
+    private AppSearchIndex appSearchIndex;
+    private EditText appSearchField;
+    private String searchQuery = "";
+    private FrecencyRanker frecencyRanker;
+    private LaunchHistoryStore launchHistoryStore;
+    private AllAppsAdapter topAppsAdapter;
+    private RecyclerView topAppsRecycler;
+    private TextView tvTopAppsTitle, btnSortMode;
+    private boolean rankedOrder;
+    private RecyclerView allAppsRecycler;
+    private AlphabetRailView alphabetRail;
+    private AppSectionIndex appSectionIndex;
+    private AppCatalogLoader appCatalogLoader;
+    private IconCache iconCache;
+    private PackageMetadataCache packageMetadata;
+    private PackageChangeMonitor packageChangeMonitor;
+    private LaunchTargetCache launchTargets;
+    private LaunchLatencyTracker launchLatency;
+    private ShortcutCache shortcutCache;
+    private RecentAppsTracker recentAppsTracker;
+    private ProcessMemorySampler memorySampler;
+    private RelativeTimeTicker timeTicker;
+    private MemoryReclaimer memoryReclaimer;
+    private int allAppsSpanCount;
     private RecentAppsAdapter recentAppsAdapter;
     private ArrayList<RecentAppItem> recentApps;
     private TextView tvAppsCount;
@@ -78,6 +106,12 @@ public class MainActivity extends AppCompatActivity {
     private ViewMode currentViewMode = ViewMode.HOME;
     private Random random = new Random();
 
+    // Rows of the apps grid published in the first catalog batch
+    private static final int FIRST_SCREEN_ROWS = 4;
+
+    private static final String PREFS_NAME = "launcher_prefs";
+    private static final String PREF_RANKED_ORDER = "apps_ranked_order";
+
     public enum ViewMode {
         HOME, MULTITASK, APPS
     }
@@ -96,6 +130,8 @@ public class MainActivity extends AppCompatActivity {
         setupAdapters();
         setupDraggableHomeButton();
         setupClickListeners();
+        loadInstalledApps();
+        setupPackageChangeMonitor();
 
         // Set initial view mode
         switchToViewMode(ViewMode.HOME);
@@ -142,7 +178,7 @@ public class MainActivity extends AppCompatActivity {
         speedometerView = homeView.findViewById(R.id.speedometerView);
         recentCallsList = homeView.findViewById(R.id.recentCallsList);
 
-        RecyclerView allAppsRecycler = appsView.findViewById(R.id.allAppsRecycler);
+        allAppsRecycler = appsView.findViewById(R.id.allAppsRecycler);
 
         // Bottom navigation apps
         appPhone = findViewById(R.id.appPhone);
@@ -207,15 +243,51 @@ public class MainActivity extends AppCompatActivity {
 
     private void setupData() {
         // Recent calls data
+        long now = System.currentTimeMillis();
         recentCalls = new ArrayList<>();
-        recentCalls.add(new CallItem("Мама", "2 мин назад", CallItem.CallType.INCOMING));
-        recentCalls.add(new CallItem("Работа", "15 мин назад", CallItem.CallType.MISSED));
-        recentCalls.add(new CallItem("Анна", "1 час назад", CallItem.CallType.OUTGOING));
-        recentCalls.add(new CallItem("Сергей", "2 часа назад", CallItem.CallType.INCOMING));
+        recentCalls.add(new CallItem("Мама", now - 2 * 60 * 1000L, CallItem.CallType.INCOMING));
+        recentCalls.add(new CallItem("Работа", now - 15 * 60 * 1000L, CallItem.CallType.MISSED));
+        recentCalls.add(new CallItem("Анна", now - 60 * 60 * 1000L, CallItem.CallType.OUTGOING));
+        recentCalls.add(new CallItem("Сергей", now - 2 * 60 * 60 * 1000L, CallItem.CallType.INCOMING));
 
-        // Initialize all apps list
+        // Initialize all apps list, filled asynchronously by loadInstalledApps()
         allApps = new ArrayList<>();
-        loadInstalledApps();
+        appSearchIndex = new AppSearchIndex();
+
+        // Launch history drives the top apps row and the optional ranked order
+        frecencyRanker = new FrecencyRanker();
+        launchHistoryStore = new LaunchHistoryStore(this);
+        launchHistoryStore.load(entries -> {
+            for (FrecencyRanker.Entry entry : entries) {
+                frecencyRanker.restoreEntry(entry);
+            }
+            refreshTopApps();
+            if (rankedOrder) {
+                refreshVisibleApps();
+            }
+        });
+        rankedOrder = getSharedPreferences(PREFS_NAME, MODE_PRIVATE).getBoolean(PREF_RANKED_ORDER, false);
+
+        // Icons shared by the all-apps grid and the recents cards
+        iconCache = new IconCache(this);
+        // Package flags, versions and labels shared by the catalog and the recents
+        packageMetadata = new PackageMetadataCache(this);
+
+        // Taps start pre-resolved intents, PackageManager is only queried in the background
+        launchTargets = new LaunchTargetCache(this);
+        launchTargets.refreshSlots();
+
+        launchLatency = new LaunchLatencyTracker(this);
+
+        // Queried on the first long press of a package, kept warm for the top apps
+        shortcutCache = new ShortcutCache(this);
+
+        // Keeps the recents order in memory and reads only new usage events
+        recentAppsTracker = new RecentAppsTracker(this, packageMetadata);
+        memorySampler = new ProcessMemorySampler(this);
+        // One wake-up for every "N мин назад" label, when one of them changes
+        timeTicker = new RelativeTimeTicker();
+        memoryReclaimer = new MemoryReclaimer(this);
     }
 
     private void setupAdapters() {
@@ -229,80 +301,387 @@ public class MainActivity extends AppCompatActivity {
 
             recentCallsList.setLayoutManager(new LinearLayoutManager(this));
             recentCallsList.setAdapter(recentCallsAdapter);
+            timeTicker.register(recentCallsAdapter);
         }
 
         // All apps adapter
-        RecyclerView allAppsRecycler = appsView.findViewById(R.id.allAppsRecycler);
         if (allAppsRecycler != null) {
             int spanCount = getResources().getConfiguration().orientation == Configuration.ORIENTATION_LANDSCAPE ? 8 : 6;
+            allAppsSpanCount = spanCount;
             allAppsRecycler.setLayoutManager(new androidx.recyclerview.widget.GridLayoutManager(this, spanCount));
 
-            allAppsAdapter = new AllAppsAdapter(this, allApps);
+            allAppsAdapter = new AllAppsAdapter(this, allApps, iconCache);
             allAppsAdapter.setOnItemClickListener(app -> {
                 launchAppByPackageName(app.packageName);
                 // Return to home after launching app
                 draggableHomeButton.hideAllMenus();
             });
+            allAppsAdapter.setOnItemLongClickListener(this::showAppPopup);
             allAppsRecycler.setAdapter(allAppsAdapter);
+            allAppsRecycler.addOnScrollListener(new IconPrefetcher(iconCache, allAppsAdapter));
         }
 
+        setupAppSearch();
+        setupTopApps();
+        setupAlphabetRail();
+
         // Setup recent apps adapter
         setupRecentAppsAdapter();
     }
 
     private void launchAppByPackageName(String packageName) {
+        launchLatency.onLaunchRequested("apps", packageName);
+        startPackage(packageName);
+    }
+
+    private void startPackage(String packageName) {
         try {
-            PackageManager pm = getPackageManager();
-            Intent intent = pm.getLaunchIntentForPackage(packageName);
-            if (intent != null) {
+            Intent intent = launchTargets.getLaunchIntent(packageName);
+            if (intent == null || !startCached(intent, packageName)) {
+                // Not in the catalog (yet) or stale, fall back to asking PackageManager
+                intent = getPackageManager().getLaunchIntentForPackage(packageName);
+                if (intent == null) return;
                 intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
                 startActivity(intent);
             }
+            // Only launches that started count towards the ranking
+            frecencyRanker.recordLaunch(packageName, System.currentTimeMillis());
+            onAppLaunched(packageName);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    // A cached activity may have been renamed by an update; its targets are dropped and false returned
+    private boolean startCached(Intent intent, String packageName) {
+        try {
+            startActivity(intent);
+            return true;
+        } catch (ActivityNotFoundException e) {
+            launchTargets.invalidate(packageName);
+            return false;
+        }
+    }
+
+    // The launched app is what the user works in next, so the app after it is warmed while they do
+    private void onAppLaunched(String packageName) {
+        recentAppsTracker.onAppLaunched(packageName, predictedNext -> {
+            if (predictedNext != null) {
+                warmUp(predictedNext);
+            }
+        });
+    }
+
     private void loadInstalledApps() {
-        PackageManager pm = getPackageManager();
-        Intent intent = new Intent(Intent.ACTION_MAIN);
-        intent.addCategory(Intent.CATEGORY_LAUNCHER);
+        if (appCatalogLoader == null) {
+            appCatalogLoader = new AppCatalogLoader(this, iconCache, packageMetadata);
+        }
 
-        List<ResolveInfo> apps = pm.queryIntentActivities(intent, 0);
+        // Clear any previous catalog before streaming in a fresh one
         allApps.clear();
+        appSearchIndex.clear();
+        launchTargets.setCatalog(allApps);
+        refreshVisibleApps();
+
+        int spanCount = allAppsSpanCount > 0 ? allAppsSpanCount : 8;
+        appCatalogLoader.load(spanCount * FIRST_SCREEN_ROWS, new AppCatalogLoader.Listener() {
+            @Override
+            public void onAppsLoaded(List<AppItem> batch) {
+                // Snapshot and batches arrive already sorted, so they are simply appended
+                allApps.addAll(batch);
+                appSearchIndex.addAll(batch);
+                launchTargets.addApps(batch);
+                if (!searchQuery.isEmpty() || rankedOrder) {
+                    refreshVisibleApps();
+                } else if (allAppsAdapter != null) {
+                    allAppsAdapter.addApps(batch);
+                }
+            }
 
-        for (ResolveInfo app : apps) {
-            String appName = app.loadLabel(pm).toString();
-            String packageName = app.activityInfo.packageName;
-
-            // Don't include our own app
-            if (!packageName.equals(getPackageName())) {
-                try {
-                    android.graphics.drawable.Drawable icon = pm.getApplicationIcon(packageName);
-                    allApps.add(new AppItem(appName, packageName, icon, getColorForApp(appName)));
-                } catch (PackageManager.NameNotFoundException e) {
-                    // Use default icon if app icon not found
-                    allApps.add(new AppItem(appName, packageName, R.drawable.round_phone_android_24, R.color.blue_400));
+            @Override
+            public void onCatalogReconciled(List<AppItem> apps) {
+                // Apply only what changed since the snapshot
+                applyCatalog(apps);
+            }
+
+            @Override
+            public void onIconsLoaded(List<AppItem> apps) {
+                if (allAppsAdapter != null) {
+                    allAppsAdapter.notifyAppsChanged(apps);
                 }
             }
+
+            @Override
+            public void onLoadFinished() {
+                refreshTopApps();
+                // Streamed batches skip the section index, build it once for the whole catalog
+                updateSectionIndex(searchQuery.isEmpty() && !rankedOrder);
+            }
+        });
+    }
+
+    private void applyCatalog(List<AppItem> apps) {
+        // Keep the search index in step with only the entries that changed
+        Set<AppItem> previous = new HashSet<>(allApps);
+        Set<AppItem> current = new HashSet<>(apps);
+        for (AppItem app : allApps) {
+            if (!current.contains(app)) {
+                appSearchIndex.remove(app);
+            }
+        }
+        for (AppItem app : apps) {
+            if (!previous.contains(app)) {
+                appSearchIndex.add(app);
+            }
         }
 
-        // Sort apps alphabetically
-        allApps.sort((a, b) -> a.name.compareToIgnoreCase(b.name));
+        allApps.clear();
+        allApps.addAll(apps);
+        launchTargets.setCatalog(allApps);
+        refreshVisibleApps();
+    }
 
-        if (allAppsAdapter != null) {
-            allAppsAdapter.notifyDataSetChanged();
+    private void refreshVisibleApps() {
+        if (allAppsAdapter == null) return;
+        boolean alphabetical = searchQuery.isEmpty() && !rankedOrder;
+        // The rail jumps to positions of the list on screen, so it follows once the diff is applied
+        Runnable onCommitted = () -> updateSectionIndex(alphabetical);
+        if (!searchQuery.isEmpty()) {
+            allAppsAdapter.updateApps(appSearchIndex.search(searchQuery), onCommitted);
+        } else if (rankedOrder) {
+            allAppsAdapter.updateApps(frecencyRanker.rank(allApps, System.currentTimeMillis()), onCommitted);
+        } else {
+            allAppsAdapter.updateApps(allApps, onCommitted);
         }
     }
 
-    private int getColorForApp(String appName) {
-        // Assign colors based on app name hash for consistency
-        int hash = appName.hashCode();
-        int[] colors = {
-                R.color.blue_400, R.color.green_400, R.color.orange_400,
-                R.color.pink_400, R.color.gray_400
-        };
-        return colors[Math.abs(hash) % colors.length];
+    private void setupAlphabetRail() {
+        alphabetRail = appsView.findViewById(R.id.alphabetRail);
+        if (alphabetRail == null || allAppsRecycler == null) return;
+
+        alphabetRail.setOnSectionSelectedListener(section -> {
+            if (appSectionIndex == null) return;
+            // Jump instead of smooth scrolling so only the target window gets bound
+            allAppsRecycler.stopScroll();
+            androidx.recyclerview.widget.GridLayoutManager layoutManager =
+                    (androidx.recyclerview.widget.GridLayoutManager) allAppsRecycler.getLayoutManager();
+            layoutManager.scrollToPositionWithOffset(appSectionIndex.getPositionForSection(section), 0);
+        });
+
+        allAppsRecycler.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                if (appSectionIndex == null) return;
+                androidx.recyclerview.widget.GridLayoutManager layoutManager =
+                        (androidx.recyclerview.widget.GridLayoutManager) recyclerView.getLayoutManager();
+                int first = layoutManager.findFirstVisibleItemPosition();
+                if (first != RecyclerView.NO_POSITION) {
+                    alphabetRail.setActiveSection(appSectionIndex.getSectionForPosition(first));
+                }
+            }
+        });
+    }
+
+    private void updateSectionIndex(boolean alphabetical) {
+        if (alphabetRail == null) return;
+        // Letters only make sense over the full alphabetical catalog
+        if (!alphabetical || allApps.isEmpty()) {
+            appSectionIndex = null;
+            alphabetRail.setVisibility(View.GONE);
+            return;
+        }
+        appSectionIndex = new AppSectionIndex(allApps);
+        alphabetRail.setSections(appSectionIndex.getSections());
+        alphabetRail.setVisibility(View.VISIBLE);
+    }
+
+    private void setupTopApps() {
+        topAppsRecycler = appsView.findViewById(R.id.topAppsRecycler);
+        tvTopAppsTitle = appsView.findViewById(R.id.tvTopAppsTitle);
+        btnSortMode = appsView.findViewById(R.id.btnSortMode);
+
+        if (topAppsRecycler != null) {
+            // One row with the same columns as the grid below it
+            int spanCount = allAppsSpanCount > 0 ? allAppsSpanCount : 8;
+            topAppsRecycler.setLayoutManager(new androidx.recyclerview.widget.GridLayoutManager(this, spanCount));
+            topAppsRecycler.setNestedScrollingEnabled(false);
+
+            topAppsAdapter = new AllAppsAdapter(this, new ArrayList<>(), iconCache);
+            topAppsAdapter.setOnItemClickListener(app -> {
+                launchAppByPackageName(app.packageName);
+                draggableHomeButton.hideAllMenus();
+            });
+            topAppsAdapter.setOnItemLongClickListener(this::showAppPopup);
+            topAppsRecycler.setAdapter(topAppsAdapter);
+        }
+
+        if (btnSortMode != null) {
+            updateSortModeLabel();
+            btnSortMode.setOnClickListener(v -> {
+                rankedOrder = !rankedOrder;
+                getSharedPreferences(PREFS_NAME, MODE_PRIVATE).edit()
+                        .putBoolean(PREF_RANKED_ORDER, rankedOrder)
+                        .apply();
+                updateSortModeLabel();
+                refreshVisibleApps();
+            });
+        }
+    }
+
+    private void updateSortModeLabel() {
+        btnSortMode.setText(rankedOrder ? "Часто" : "А–Я");
+    }
+
+    private void refreshTopApps() {
+        if (topAppsAdapter == null) return;
+
+        int limit = allAppsSpanCount > 0 ? allAppsSpanCount : 8;
+        Map<String, AppItem> appsByPackage = new HashMap<>();
+        for (AppItem app : allApps) {
+            if (!appsByPackage.containsKey(app.packageName)) {
+                appsByPackage.put(app.packageName, app);
+            }
+        }
+
+        // Ask for a few extra in case some top packages were uninstalled
+        ArrayList<AppItem> topApps = new ArrayList<>(limit);
+        for (String packageName : frecencyRanker.topPackages(limit * 2, System.currentTimeMillis())) {
+            AppItem app = appsByPackage.get(packageName);
+            if (app != null) {
+                topApps.add(app);
+                if (topApps.size() == limit) break;
+            }
+        }
+
+        topAppsAdapter.updateApps(topApps);
+        ArrayList<String> topPackages = new ArrayList<>(topApps.size());
+        for (AppItem app : topApps) {
+            topPackages.add(app.packageName);
+        }
+        shortcutCache.warm(topPackages);
+        int visibility = topApps.isEmpty() ? View.GONE : View.VISIBLE;
+        topAppsRecycler.setVisibility(visibility);
+        if (tvTopAppsTitle != null) {
+            tvTopAppsTitle.setVisibility(visibility);
+        }
+    }
+
+    private void setupAppSearch() {
+        appSearchField = appsView.findViewById(R.id.etAppSearch);
+        if (appSearchField == null) return;
+
+        appSearchField.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                searchQuery = s.toString().trim();
+                refreshVisibleApps();
+            }
+        });
+
+        appSearchField.setOnEditorActionListener((v, actionId, event) -> {
+            // Launch the best match straight from the keyboard
+            if (actionId == EditorInfo.IME_ACTION_SEARCH && !searchQuery.isEmpty()) {
+                List<AppItem> results = appSearchIndex.search(searchQuery);
+                if (!results.isEmpty()) {
+                    launchAppByPackageName(results.get(0).packageName);
+                    draggableHomeButton.hideAllMenus();
+                }
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void setupPackageChangeMonitor() {
+        packageChangeMonitor = new PackageChangeMonitor(this, new PackageChangeMonitor.Listener() {
+            @Override
+            public void onPackageUpdated(String packageName) {
+                packageMetadata.invalidate(packageName);
+                appCatalogLoader.loadPackage(packageName, (pkg, apps) -> replacePackageApps(pkg, apps));
+                shortcutCache.invalidate(packageName);
+                recentAppsTracker.invalidatePackage(packageName);
+                // A new app may have become the default for a bottom bar slot
+                launchTargets.refreshSlots();
+            }
+
+            @Override
+            public void onPackageRemoved(String packageName) {
+                packageMetadata.invalidate(packageName);
+                appCatalogLoader.removePackage(packageName);
+                replacePackageApps(packageName, Collections.emptyList());
+                launchTargets.refreshSlots();
+                shortcutCache.invalidate(packageName);
+                recentAppsTracker.invalidatePackage(packageName);
+            }
+
+            @Override
+            public void onShortcutsChanged(String packageName) {
+                shortcutCache.invalidate(packageName);
+            }
+        });
+        packageChangeMonitor.register();
+    }
+
+    private boolean showAppPopup(AppItem app, View anchor) {
+        // Instant for warm packages, otherwise one background query away
+        shortcutCache.load(app.packageName, (packageName, shortcuts) -> {
+            if (!anchor.isAttachedToWindow()) return;
+            PopupMenu popup = new PopupMenu(this, anchor);
+            Menu menu = popup.getMenu();
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N_MR1) {
+                for (int i = 0; i < shortcuts.size(); i++) {
+                    android.content.pm.ShortcutInfo shortcut = shortcuts.get(i);
+                    CharSequence label = shortcut.getShortLabel() != null
+                            ? shortcut.getShortLabel() : shortcut.getLongLabel();
+                    menu.add(Menu.NONE, i, i, label);
+                }
+            }
+            int appInfoId = shortcuts.size();
+            menu.add(Menu.NONE, appInfoId, appInfoId, "О приложении");
+
+            popup.setOnMenuItemClickListener(item -> {
+                if (item.getItemId() == appInfoId) {
+                    Intent intent = new Intent(Settings.ACTION_APPLICATION_DETAILS_SETTINGS,
+                            android.net.Uri.fromParts("package", packageName, null));
+                    intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+                    startActivity(intent);
+                } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N_MR1) {
+                    launchLatency.onLaunchRequested("shortcut", packageName);
+                    if (shortcutCache.start(shortcuts.get(item.getItemId()), anchor)) {
+                        frecencyRanker.recordLaunch(packageName, System.currentTimeMillis());
+                    }
+                }
+                draggableHomeButton.hideAllMenus();
+                return true;
+            });
+            popup.show();
+        });
+        return true;
+    }
+
+    private void replacePackageApps(String packageName, List<AppItem> packageApps) {
+        // Patch only the entries of this package, the rest keep their objects
+        ArrayList<AppItem> updated = new ArrayList<>(allApps.size() + packageApps.size());
+        for (AppItem app : allApps) {
+            if (!app.packageName.equals(packageName)) {
+                updated.add(app);
+            }
+        }
+        // The catalog stays sorted, new entries arrive with their collation keys
+        for (AppItem app : packageApps) {
+            updated.add(AppSorter.insertionIndex(updated, app), app);
+        }
+
+        applyCatalog(updated);
+        appCatalogLoader.saveSnapshot(updated);
     }
 
     private void setupDraggableHomeButton() {
@@ -315,6 +694,11 @@ public class MainActivity extends AppCompatActivity {
                 @Override
                 public void onMenuShow() {
                     switchToViewMode(ViewMode.APPS);
+                    // Scores move with time of day, rank again on every open
+                    refreshTopApps();
+                    if (rankedOrder) {
+                        refreshVisibleApps();
+                    }
                 }
 
                 @Override
@@ -343,6 +727,14 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void setupClickListeners() {
+        // Long press on the clock shows launch latency numbers
+        if (tvTime != null) {
+            tvTime.setOnLongClickListener(v -> {
+                showLaunchLatencyReport();
+                return true;
+            });
+        }
+
         // Bottom navigation app clicks
         if (appPhone != null) {
             appPhone.setOnClickListener(v -> {
@@ -382,6 +774,31 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    private void showLaunchLatencyReport() {
+        launchLatency.report(report -> {
+            TextView message = new TextView(this);
+            // Icon cache hit rates sit next to the launch times they affect
+            message.setText(report + "\n" + iconCache.getStats());
+            message.setTypeface(android.graphics.Typeface.MONOSPACE);
+            message.setTextSize(12f);
+            int padding = (int) (16 * getResources().getDisplayMetrics().density);
+            message.setPadding(padding, padding, padding, padding);
+
+            android.widget.HorizontalScrollView scroll = new android.widget.HorizontalScrollView(this);
+            scroll.addView(message);
+
+            new androidx.appcompat.app.AlertDialog.Builder(this)
+                    .setTitle("Время запуска приложений")
+                    .setView(scroll)
+                    .setPositiveButton("Сохранить", (dialog, which) -> launchLatency.dump(file ->
+                            android.widget.Toast.makeText(this,
+                                    file != null ? file.getAbsolutePath() : "Не удалось сохранить",
+                                    android.widget.Toast.LENGTH_LONG).show()))
+                    .setNegativeButton("Закрыть", null)
+                    .show();
+        });
+    }
+
     private void animateAppClick(View view) {
         // Scale animation for app click feedback
         ObjectAnimator scaleDown = ObjectAnimator.ofFloat(view, "scaleX", 1.0f, 0.9f);
@@ -403,72 +820,32 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void launchApp(String appName) {
+        Intent intent = launchTargets.getSlotIntent(appName);
+        if (intent == null) {
+            // Slots are still being resolved, the implicit intent works without any lookup
+            intent = LaunchTargetCache.systemIntentFor(appName);
+            if (intent == null) return;
+            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        }
+        String packageName = LaunchTargetCache.packageOf(intent);
+        launchLatency.onLaunchRequested("bar", packageName);
         try {
-            String packageName = getPackageNameForApp(appName);
-            PackageManager pm = getPackageManager();
-            Intent intent = pm.getLaunchIntentForPackage(packageName);
-            if (intent != null) {
+            if (packageName == null) {
+                // Implicit, nothing pinned that could go stale
+                startActivity(intent);
+            } else if (!startCached(intent, packageName)) {
+                // Stale slot target, resolve it once more the way the first launch did
+                Intent resolved = getPackageManager().getLaunchIntentForPackage(packageName);
+                intent = resolved != null ? resolved : LaunchTargetCache.systemIntentFor(appName);
+                intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+                packageName = LaunchTargetCache.packageOf(intent);
                 startActivity(intent);
-            } else {
-                // Fallback to system apps
-                launchSystemApp(appName);
+            }
+            if (packageName != null) {
+                frecencyRanker.recordLaunch(packageName, System.currentTimeMillis());
             }
         } catch (Exception e) {
             e.printStackTrace();
-            launchSystemApp(appName);
-        }
-    }
-
-    private void launchSystemApp(String appName) {
-        Intent intent = new Intent();
-        switch (appName.toLowerCase()) {
-            case "phone":
-                intent.setAction(Intent.ACTION_DIAL);
-                break;
-            case "messages":
-                intent.setAction(Intent.ACTION_MAIN);
-                intent.addCategory(Intent.CATEGORY_APP_MESSAGING);
-                break;
-            case "music":
-                intent.setAction(Intent.ACTION_MAIN);
-                intent.addCategory(Intent.CATEGORY_APP_MUSIC);
-                break;
-            case "maps":
-                intent.setAction(Intent.ACTION_MAIN);
-                intent.addCategory(Intent.CATEGORY_APP_MAPS);
-                break;
-            case "settings":
-                intent.setAction(android.provider.Settings.ACTION_SETTINGS);
-                break;
-            case "camera":
-                intent.setAction(android.provider.MediaStore.ACTION_IMAGE_CAPTURE);
-                break;
-            default:
-                return;
-        }
-        try {
-            startActivity(intent);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
-
-    private String getPackageNameForApp(String appName) {
-        switch (appName.toLowerCase()) {
-            case "phone":
-                return "com.android.dialer";
-            case "messages":
-                return "com.android.mms";
-            case "music":
-                return "com.android.music";
-            case "maps":
-                return "com.google.android.apps.maps";
-            case "settings":
-                return "com.android.settings";
-            case "camera":
-                return "com.android.camera2";
-            default:
-                return "com.android.settings"; // Fallback
         }
     }
 
@@ -506,6 +883,11 @@ public class MainActivity extends AppCompatActivity {
 
         targetView.setVisibility(View.VISIBLE);
 
+        // Start with the full catalog the next time the apps view opens
+        if (mode != ViewMode.APPS && appSearchField != null && appSearchField.length() > 0) {
+            appSearchField.setText("");
+        }
+
 
     }
 
@@ -518,6 +900,23 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        // Launches made from here have resumed by now, pair them with their taps
+        launchLatency.collect();
+        timeTicker.start();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        timeTicker.stop();
+        if (launchHistoryStore != null) {
+            launchHistoryStore.save(frecencyRanker.getEntries());
+        }
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
@@ -530,6 +929,47 @@ public class MainActivity extends AppCompatActivity {
         if (speedHandler != null) {
             speedHandler.removeCallbacksAndMessages(null);
         }
+        if (packageChangeMonitor != null) {
+            packageChangeMonitor.unregister();
+        }
+        if (appCatalogLoader != null) {
+            appCatalogLoader.shutdown();
+        }
+        if (iconCache != null) {
+            iconCache.shutdown();
+        }
+        if (launchHistoryStore != null) {
+            launchHistoryStore.shutdown();
+        }
+        if (launchTargets != null) {
+            launchTargets.shutdown();
+        }
+        if (launchLatency != null) {
+            launchLatency.shutdown();
+        }
+        if (shortcutCache != null) {
+            shortcutCache.shutdown();
+        }
+        if (recentAppsTracker != null) {
+            recentAppsTracker.shutdown();
+        }
+        if (memorySampler != null) {
+            memorySampler.shutdown();
+        }
+        if (memoryReclaimer != null) {
+            memoryReclaimer.shutdown();
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (iconCache != null) {
+            iconCache.trimMemory(level);
+        }
+        if (recentAppsAdapter != null) {
+            recentAppsAdapter.trimMemory(level);
+        }
     }
 
     @Override
@@ -545,12 +985,13 @@ public class MainActivity extends AppCompatActivity {
         }
 
         public String name;
-        public String time;
+        // Formatted at bind time, so the label never goes stale
+        public long timestamp;
         public CallType type;
 
-        public CallItem(String name, String time, CallType type) {
+        public CallItem(String name, long timestamp, CallType type) {
             this.name = name;
-            this.time = time;
+            this.timestamp = timestamp;
             this.type = type;
         }
     }
@@ -568,23 +1009,31 @@ public class MainActivity extends AppCompatActivity {
         public android.graphics.drawable.Drawable iconDrawable;
         public int colorRes;
         public android.graphics.Bitmap screenshot;
-        public String lastUsedTime;
+        // Formatted at bind time, so the label never goes stale
+        public long lastUsed;
         public long memoryUsage;
         public boolean isLocked;
         public int taskId;
+        public long versionCode;
+        public String iconKey;
 
         public RecentAppItem(String name, String packageName, android.graphics.drawable.Drawable iconDrawable,
-                             int colorRes, String lastUsedTime, int taskId) {
+                             int colorRes, long lastUsed, int taskId) {
             this.name = name;
             this.packageName = packageName;
             this.iconDrawable = iconDrawable;
             this.colorRes = colorRes;
-            this.lastUsedTime = lastUsedTime;
+            this.lastUsed = lastUsed;
             this.taskId = taskId;
             this.isLocked = false;
             this.memoryUsage = 0;
             this.screenshot = null;
         }
+
+        public void setIconVersion(long versionCode) {
+            this.versionCode = versionCode;
+            this.iconKey = AppItem.iconKeyFor(packageName, versionCode);
+        }
     }
 
     private void setupRecentAppsAdapter() {
@@ -601,7 +1050,7 @@ public class MainActivity extends AppCompatActivity {
             recentApps = new ArrayList<>();
             loadRecentApps();
 
-            recentAppsAdapter = new RecentAppsAdapter(this, recentApps);
+            recentAppsAdapter = new RecentAppsAdapter(this, recentApps, iconCache);
             recentAppsAdapter.setOnRecentAppActionListener(new RecentAppsAdapter.OnRecentAppActionListener() {
                 @Override
                 public void onAppClick(RecentAppItem app) {
@@ -623,6 +1072,7 @@ public class MainActivity extends AppCompatActivity {
             });
 
             recentAppsRecycler.setAdapter(recentAppsAdapter);
+            timeTicker.register(recentAppsAdapter);
 
             // Clear all button
             if (btnClearAll != null) {
@@ -635,86 +1085,124 @@ public class MainActivity extends AppCompatActivity {
 
     private void loadRecentApps() {
         ActivityManager activityManager = (ActivityManager) getSystemService(Context.ACTIVITY_SERVICE);
-        PackageManager packageManager = getPackageManager();
-
-        recentApps.clear();
 
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-            try {
-                // Для Android 5.0+ используем UsageStatsManager как более надежный способ
-                loadRecentAppsUsingUsageStats();
-            } catch (SecurityException e) {
-                // Fallback для случаев, когда нет разрешения
-                createDummyRecentApps();
+            // Для Android 5.0+ используем UsageStatsManager как более надежный способ
+            if (!hasUsageStatsPermission()) {
+                requestUsageStatsPermission();
+                return;
             }
-        } else {
-            // Для старых версий Android (до 5.0)
-            try {
-                @SuppressWarnings("deprecation")
-                List<ActivityManager.RecentTaskInfo> recentTasks = activityManager.getRecentTasks(20,
-                        ActivityManager.RECENT_WITH_EXCLUDED);
+            // Only events since the previous swipe are read, the list is patched when they arrive
+            recentAppsTracker.refresh(this::applyRecents);
+            return;
+        }
 
-                for (ActivityManager.RecentTaskInfo taskInfo : recentTasks) {
-                    processTaskInfo(taskInfo, packageManager);
-                }
-            } catch (SecurityException e) {
-                createDummyRecentApps();
+        // Для старых версий Android (до 5.0)
+        ArrayList<RecentAppItem> loaded = new ArrayList<>();
+        try {
+            @SuppressWarnings("deprecation")
+            List<ActivityManager.RecentTaskInfo> recentTasks = activityManager.getRecentTasks(20,
+                    ActivityManager.RECENT_WITH_EXCLUDED);
+
+            for (ActivityManager.RecentTaskInfo taskInfo : recentTasks) {
+                processTaskInfo(taskInfo, loaded);
             }
+        } catch (SecurityException e) {
+            loaded.clear();
+            createDummyRecentApps(loaded);
         }
 
+        showRecents(loaded);
+        sampleRecentsMemory();
+    }
+
+    // Diffed against the cards on screen, only what changed is rebound
+    private void showRecents(List<RecentAppItem> apps) {
         if (recentAppsAdapter != null) {
-            recentAppsAdapter.notifyDataSetChanged();
+            recentAppsAdapter.setApps(apps);
+        } else {
+            recentApps.clear();
+            recentApps.addAll(apps);
         }
+        // New timestamps may change sooner than the scheduled tick
+        timeTicker.reschedule();
         updateAppsCount();
     }
 
-    @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
-    private void loadRecentAppsUsingUsageStats() {
-        UsageStatsManager usageStatsManager = (UsageStatsManager) getSystemService(Context.USAGE_STATS_SERVICE);
-        long endTime = System.currentTimeMillis();
-        long beginTime = endTime - 1000 * 60 * 60 * 24; // За последние 24 часа
-
-        // Проверяем, есть ли у нас разрешение
-        if (!hasUsageStatsPermission()) {
-            requestUsageStatsPermission();
+    private void applyRecents(List<RecentAppsTracker.Entry> entries, RecentAppsTracker.Entry predictedNext) {
+        if (entries == null) {
+            // Fallback для случаев, когда нет разрешения
+            ArrayList<RecentAppItem> dummies = new ArrayList<>();
+            createDummyRecentApps(dummies);
+            showRecents(dummies);
             return;
         }
 
-        Map<String, UsageStats> stats = usageStatsManager.queryAndAggregateUsageStats(beginTime, endTime);
-        List<UsageStats> sortedStats = new ArrayList<>(stats.values());
-        Collections.sort(sortedStats, (o1, o2) -> Long.compare(o2.getLastTimeUsed(), o1.getLastTimeUsed()));
-
-        PackageManager pm = getPackageManager();
-        int count = 0;
-
-        for (UsageStats usageStats : sortedStats) {
-            if (count >= 10) break; // Ограничиваем количество приложений
+        Map<String, RecentAppItem> previous = new HashMap<>();
+        for (RecentAppItem app : recentApps) {
+            previous.put(app.packageName, app);
+        }
 
-            try {
-                String packageName = usageStats.getPackageName();
-                if (packageName.equals(getPackageName()) || isSystemApp(packageName)) {
-                    continue;
-                }
+        ArrayList<RecentAppItem> updated = new ArrayList<>(entries.size());
+        for (RecentAppsTracker.Entry entry : entries) {
+            // Icon comes from the shared icon cache at bind time
+            RecentAppItem recentApp = new RecentAppItem(
+                    entry.label,
+                    entry.packageName,
+                    null,
+                    AppCatalogLoader.DEFAULT_TILE_COLOR,
+                    entry.lastUsed,
+                    -1 // taskId неизвестен при этом подходе
+            );
+            recentApp.setIconVersion(entry.versionCode);
+            RecentAppItem old = previous.remove(entry.packageName);
+            if (old != null) {
+                recentApp.isLocked = old.isLocked;
+                recentApp.memoryUsage = old.memoryUsage;
+                recentApp.screenshot = old.screenshot;
+            }
+            // The predicted app leads the row, the rest stays in recency order
+            if (predictedNext != null && entry.packageName.equals(predictedNext.packageName)) {
+                updated.add(0, recentApp);
+            } else {
+                updated.add(recentApp);
+            }
+        }
+        // Locked apps stay even after they fall out of the recents window
+        for (RecentAppItem app : recentApps) {
+            if (app.isLocked && previous.containsKey(app.packageName)) {
+                updated.add(app);
+            }
+        }
 
-                ApplicationInfo appInfo = pm.getApplicationInfo(packageName, 0);
-                String appName = pm.getApplicationLabel(appInfo).toString();
-                Drawable icon = pm.getApplicationIcon(packageName);
+        if (predictedNext != null) {
+            warmUp(predictedNext);
+        }
+        showRecents(updated);
+        sampleRecentsMemory();
+    }
 
-                RecentAppItem recentApp = new RecentAppItem(
-                        appName,
-                        packageName,
-                        icon,
-                        getColorForApp(appName),
-                        getTimeAgo(usageStats.getLastTimeUsed()),
-                        -1 // taskId неизвестен при этом подходе
-                );
+    // Everything a tap on the predicted app needs is ready before the tap
+    private void warmUp(RecentAppsTracker.Entry app) {
+        launchTargets.warm(app.packageName);
+        iconCache.prefetch(app.packageName, app.versionCode);
+    }
 
-                recentApps.add(recentApp);
-                count++;
-            } catch (PackageManager.NameNotFoundException e) {
-                // Пропускаем приложения, которые не найдены
+    private void sampleRecentsMemory() {
+        // One batched sample for all cards, reused while it is fresh
+        memorySampler.sample(memoryByPackage -> {
+            for (int i = 0; i < recentApps.size(); i++) {
+                RecentAppItem app = recentApps.get(i);
+                Long memory = memoryByPackage.get(app.packageName);
+                long memoryUsage = memory != null ? memory : 0;
+                if (app.memoryUsage != memoryUsage) {
+                    app.memoryUsage = memoryUsage;
+                    if (recentAppsAdapter != null) {
+                        recentAppsAdapter.notifyItemChanged(i, RecentAppsAdapter.PAYLOAD_MEMORY);
+                    }
+                }
             }
-        }
+        });
     }
 
     private boolean hasUsageStatsPermission() {
@@ -732,7 +1220,7 @@ public class MainActivity extends AppCompatActivity {
         startActivity(intent);
     }
 
-    private void processTaskInfo(ActivityManager.RecentTaskInfo taskInfo, PackageManager packageManager) {
+    private void processTaskInfo(ActivityManager.RecentTaskInfo taskInfo, List<RecentAppItem> into) {
         if (taskInfo.baseIntent != null && taskInfo.baseIntent.getComponent() != null) {
             String packageName = taskInfo.baseIntent.getComponent().getPackageName();
 
@@ -743,118 +1231,68 @@ public class MainActivity extends AppCompatActivity {
                 return;
             }
 
-            try {
-                ApplicationInfo appInfo = packageManager.getApplicationInfo(packageName, 0);
-                String appName = packageManager.getApplicationLabel(appInfo).toString();
-                Drawable icon = packageManager.getApplicationIcon(packageName);
+            // Пропускаем приложения, которые не найдены
+            PackageMetadataCache.Metadata metadata = packageMetadata.get(packageName);
+            if (metadata == null) return;
 
-                String lastUsedTime = "getTimeAgo(taskInfo.lastActiveTime)";
-                RecentAppItem recentApp = new RecentAppItem(
-                        appName, packageName, icon,
-                        getColorForApp(appName), lastUsedTime, taskInfo.id
-                );
+            // The legacy task list carries no usage time, the order is what matters there
+            RecentAppItem recentApp = new RecentAppItem(
+                    packageMetadata.getLabel(packageName), packageName, null,
+                    AppCatalogLoader.DEFAULT_TILE_COLOR, System.currentTimeMillis(), taskInfo.id
+            );
+            recentApp.setIconVersion(metadata.versionCode);
 
-                recentApp.memoryUsage = getAppMemoryUsage(packageName);
-                recentApps.add(recentApp);
-            } catch (PackageManager.NameNotFoundException e) {
-                // Пропускаем приложения, которые не найдены
-            }
+            into.add(recentApp);
         }
     }
 
-    private void createDummyRecentApps() {
+    private void createDummyRecentApps(List<RecentAppItem> into) {
         // Create some dummy recent apps for demonstration
         try {
             android.graphics.drawable.Drawable defaultIcon = getResources().getDrawable(R.drawable.round_phone_android_24);
-
-            recentApps.add(new RecentAppItem("Chrome", "com.android.chrome", defaultIcon,
-                    R.color.blue_400, "2 мин назад", 1));
-            recentApps.add(new RecentAppItem("WhatsApp", "com.whatsapp", defaultIcon,
-                    R.color.green_400, "5 мин назад", 2));
-            recentApps.add(new RecentAppItem("YouTube", "com.google.android.youtube", defaultIcon,
-                    R.color.pink_400, "10 мин назад", 3));
-            recentApps.add(new RecentAppItem("Telegram", "org.telegram.messenger", defaultIcon,
-                    R.color.blue_400, "15 мин назад", 4));
-            recentApps.add(new RecentAppItem("Spotify", "com.spotify.music", defaultIcon,
-                    R.color.green_400, "1 час назад", 5));
+            long now = System.currentTimeMillis();
+
+            into.add(new RecentAppItem("Chrome", "com.android.chrome", defaultIcon,
+                    R.color.blue_400, now - 2 * 60 * 1000L, 1));
+            into.add(new RecentAppItem("WhatsApp", "com.whatsapp", defaultIcon,
+                    R.color.green_400, now - 5 * 60 * 1000L, 2));
+            into.add(new RecentAppItem("YouTube", "com.google.android.youtube", defaultIcon,
+                    R.color.pink_400, now - 10 * 60 * 1000L, 3));
+            into.add(new RecentAppItem("Telegram", "org.telegram.messenger", defaultIcon,
+                    R.color.blue_400, now - 15 * 60 * 1000L, 4));
+            into.add(new RecentAppItem("Spotify", "com.spotify.music", defaultIcon,
+                    R.color.green_400, now - 60 * 60 * 1000L, 5));
 
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    private boolean isSystemApp(String packageName) {
-        try {
-            PackageManager pm = getPackageManager();
-            ApplicationInfo appInfo = pm.getApplicationInfo(packageName, 0);
-            return (appInfo.flags & (ApplicationInfo.FLAG_SYSTEM | ApplicationInfo.FLAG_UPDATED_SYSTEM_APP)) != 0;
-        } catch (PackageManager.NameNotFoundException e) {
-            return false;
-        }
-    }
-
-    private String getTimeAgo(long timestamp) {
-        long now = System.currentTimeMillis();
-        long diff = now - timestamp;
-
-        if (diff < 60 * 1000) {
-            return "Только что";
-        } else if (diff < 60 * 60 * 1000) {
-            int minutes = (int) (diff / (60 * 1000));
-            return minutes + " мин назад";
-        } else if (diff < 24 * 60 * 60 * 1000) {
-            int hours = (int) (diff / (60 * 60 * 1000));
-            return hours + " ч назад";
-        } else {
-            int days = (int) (diff / (24 * 60 * 60 * 1000));
-            return days + " дн назад";
-        }
-    }
-
-    private long getAppMemoryUsage(String packageName) {
-        try {
-            ActivityManager activityManager = (ActivityManager) getSystemService(Context.ACTIVITY_SERVICE);
-            List<ActivityManager.RunningAppProcessInfo> runningApps = activityManager.getRunningAppProcesses();
-
-            for (ActivityManager.RunningAppProcessInfo processInfo : runningApps) {
-                if (processInfo.processName.equals(packageName)) {
-                    android.os.Debug.MemoryInfo[] memoryInfos = activityManager.getProcessMemoryInfo(new int[]{processInfo.pid});
-                    if (memoryInfos.length > 0) {
-                        return memoryInfos[0].getTotalPss() * 1024; // Convert KB to bytes
-                    }
-                }
-            }
-        } catch (Exception e) {
-            // Return random memory usage for demo
-            return (long) (50 + Math.random() * 200) * 1024 * 1024; // 50-250 MB
-        }
-
-        return 0;
-    }
-
     private void switchToApp(RecentAppItem app) {
-        try {
-            ActivityManager activityManager = (ActivityManager) getSystemService(Context.ACTIVITY_SERVICE);
-            activityManager.moveTaskToFront(app.taskId, ActivityManager.MOVE_TASK_WITH_HOME);
-
-            // Return to home after switching
-            draggableHomeButton.hideAllMenus();
+        launchLatency.onLaunchRequested("recents", app.packageName);
+        // Usage-stats entries carry no task id, they start through the cached launch intent
+        if (app.taskId > 0) {
+            try {
+                ActivityManager activityManager = (ActivityManager) getSystemService(Context.ACTIVITY_SERVICE);
+                activityManager.moveTaskToFront(app.taskId, ActivityManager.MOVE_TASK_WITH_HOME);
+                onAppLaunched(app.packageName);
 
-        } catch (Exception e) {
-            // Fallback: try to launch the app normally
-            launchAppByPackageName(app.packageName);
-            draggableHomeButton.hideAllMenus();
+                // Return to home after switching
+                draggableHomeButton.hideAllMenus();
+                return;
+            } catch (Exception e) {
+                // The task is gone, launch the app normally
+            }
         }
+        startPackage(app.packageName);
+        draggableHomeButton.hideAllMenus();
     }
 
     private void closeApp(RecentAppItem app, int position) {
         try {
             if (!app.isLocked) {
-                ActivityManager activityManager = (ActivityManager) getSystemService(Context.ACTIVITY_SERVICE);
-
-                // For newer Android versions, we can't kill other apps directly
-                // So we'll just remove from our list and show animation
                 recentAppsAdapter.removeApp(position);
+                recentAppsTracker.dismiss(app.packageName);
                 updateAppsCount();
 
                 // Add haptic feedback
@@ -868,22 +1306,40 @@ public class MainActivity extends AppCompatActivity {
     private void clearAllApps() {
         // Remove all unlocked apps
         ArrayList<RecentAppItem> lockedApps = new ArrayList<>();
+        ArrayList<String> reclaimed = new ArrayList<>();
         for (RecentAppItem app : recentApps) {
             if (app.isLocked) {
                 lockedApps.add(app);
+            } else {
+                recentAppsTracker.dismiss(app.packageName);
+                reclaimed.add(app.packageName);
             }
         }
 
-        recentApps.clear();
-        recentApps.addAll(lockedApps);
-
-        recentAppsAdapter.updateApps(recentApps);
-        updateAppsCount();
+        showRecents(lockedApps);
+
+        // Locked apps, the navigation app in particular, keep running.
+        // Android 14+ ignores the kills, so there the cards are only dismissed and nothing is reported.
+        if (!reclaimed.isEmpty() && MemoryReclaimer.isSupported()) {
+            memoryReclaimer.reclaim(reclaimed, result -> {
+                memorySampler.invalidate();
+                sampleRecentsMemory();
+                // Measured around the kills, other apps move the numbers too
+                android.widget.Toast.makeText(this,
+                        "Свободная память: было " + formatMegabytes(result.availBefore)
+                                + ", стало " + formatMegabytes(result.availAfter),
+                        android.widget.Toast.LENGTH_SHORT).show();
+            });
+        }
 
         // Add haptic feedback
         draggableHomeButton.performHapticFeedback(android.view.HapticFeedbackConstants.VIRTUAL_KEY);
     }
 
+    private static String formatMegabytes(long bytes) {
+        return (bytes / (1024 * 1024)) + " МБ";
+    }
+
     private void updateAppsCount() {
         if (tvAppsCount != null) {
             int count = recentApps.size();
@@ -0,0 +1,88 @@
+package com.keeppixel.magnitalo;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class MemoryReclaimer {
+
+    // Killed processes release their pages asynchronously, availMem lags behind the kill
+    private static final long SETTLE_MS = 500;
+
+    private final ActivityManager activityManager;
+    private final String ownPackage;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // availMem around the kill pass. Other apps allocate and free meanwhile,
+    // so the difference is a measurement, not the exact memory the kills released.
+    public static class Result {
+        public final long availBefore;
+        public final long availAfter;
+
+        Result(long availBefore, long availAfter) {
+            this.availBefore = availBefore;
+            this.availAfter = availAfter;
+        }
+    }
+
+    public interface Callback {
+        void onReclaimed(Result result);
+    }
+
+    public MemoryReclaimer(Context context) {
+        this.activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        this.ownPackage = context.getPackageName();
+    }
+
+    // From Android 14 killBackgroundProcesses() only reaches the caller's own processes
+    public static boolean isSupported() {
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.UPSIDE_DOWN_CAKE;
+    }
+
+    // Kills the background processes of all given packages in one pass; the callback may be null.
+    // Does nothing, callback included, where the system ignores the kills.
+    public void reclaim(List<String> packageNames, Callback callback) {
+        if (!isSupported()) return;
+        List<String> targets = new ArrayList<>(packageNames);
+        executor.execute(() -> {
+            if (activityManager == null) return;
+            long before = availableMemory();
+            for (String packageName : targets) {
+                if (ownPackage.equals(packageName)) continue;
+                try {
+                    // Only cached and background processes go, foreground services survive
+                    activityManager.killBackgroundProcesses(packageName);
+                } catch (SecurityException e) {
+                    // KILL_BACKGROUND_PROCESSES was stripped from the manifest
+                    break;
+                }
+            }
+            if (callback == null) return;
+
+            try {
+                Thread.sleep(SETTLE_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            Result result = new Result(before, availableMemory());
+            mainHandler.post(() -> callback.onReclaimed(result));
+        });
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private long availableMemory() {
+        ActivityManager.MemoryInfo info = new ActivityManager.MemoryInfo();
+        activityManager.getMemoryInfo(info);
+        return info.availMem;
+    }
+}
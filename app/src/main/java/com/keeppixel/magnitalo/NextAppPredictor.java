@@ -0,0 +1,109 @@
+package com.keeppixel.magnitalo;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+// First-order Markov chain over foreground apps. Not thread safe, the owner confines it to one thread.
+public class NextAppPredictor {
+
+    // A switch after a longer pause starts a new routine and is not a transition
+    private static final long SESSION_GAP_MS = 30 * 60 * 1000L;
+    private static final int MIN_TRANSITIONS = 5;
+    // Share of the transitions out of the current app that have to lead to the prediction
+    private static final float MIN_CONFIDENCE = 0.4f;
+    // Counts are halved beyond this, so changed routines take over within days
+    private static final int MAX_TOTAL = 64;
+
+    private final Map<String, State> states = new HashMap<>();
+    private String current;
+    private long currentTime;
+
+    private static class State {
+        final HashMap<String, int[]> counts = new HashMap<>();
+        int total;
+        // Kept up to date on every update, so predicting never scans the counts
+        String best;
+        int bestCount;
+
+        void recomputeBest() {
+            best = null;
+            bestCount = 0;
+            for (Map.Entry<String, int[]> entry : counts.entrySet()) {
+                if (entry.getValue()[0] > bestCount) {
+                    best = entry.getKey();
+                    bestCount = entry.getValue()[0];
+                }
+            }
+        }
+    }
+
+    // Two map lookups per event; the occasional halving is amortized over MAX_TOTAL events
+    public void onForeground(String packageName, long time) {
+        if (packageName.equals(current)) {
+            currentTime = time;
+            return;
+        }
+        if (current != null && time - currentTime <= SESSION_GAP_MS) {
+            State state = states.get(current);
+            if (state == null) {
+                state = new State();
+                states.put(current, state);
+            }
+            int[] count = state.counts.get(packageName);
+            if (count == null) {
+                count = new int[1];
+                state.counts.put(packageName, count);
+            }
+            count[0]++;
+            state.total++;
+            if (count[0] > state.bestCount) {
+                state.best = packageName;
+                state.bestCount = count[0];
+            }
+            if (state.total > MAX_TOTAL) {
+                decay(state);
+            }
+        }
+        current = packageName;
+        currentTime = time;
+    }
+
+    // Most likely app after the current one, or null while the model is not confident
+    public String predictNext() {
+        if (current == null) return null;
+        State state = states.get(current);
+        if (state == null || state.total < MIN_TRANSITIONS) return null;
+        return state.bestCount >= state.total * MIN_CONFIDENCE ? state.best : null;
+    }
+
+    public void removePackage(String packageName) {
+        states.remove(packageName);
+        for (State state : states.values()) {
+            int[] count = state.counts.remove(packageName);
+            if (count == null) continue;
+            state.total -= count[0];
+            if (packageName.equals(state.best)) {
+                state.recomputeBest();
+            }
+        }
+        if (packageName.equals(current)) {
+            current = null;
+        }
+    }
+
+    private static void decay(State state) {
+        state.total = 0;
+        Iterator<int[]> it = state.counts.values().iterator();
+        while (it.hasNext()) {
+            int[] count = it.next();
+            count[0] /= 2;
+            if (count[0] == 0) {
+                it.remove();
+            } else {
+                state.total += count[0];
+            }
+        }
+        state.recomputeBest();
+    }
+}
@@ -0,0 +1,92 @@
+package com.keeppixel.magnitalo;
+
+import android.content.Context;
+import android.content.pm.LauncherApps;
+import android.content.pm.ShortcutInfo;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.UserHandle;
+import java.util.List;
+
+public class PackageChangeMonitor extends LauncherApps.Callback {
+
+    private final LauncherApps launcherApps;
+    private final Listener listener;
+    private boolean registered;
+
+    public interface Listener {
+        // Package was installed or updated, or its launcher activities changed
+        void onPackageUpdated(String packageName);
+        void onPackageRemoved(String packageName);
+        // Dynamic or manifest shortcuts of the package were added, updated or removed
+        void onShortcutsChanged(String packageName);
+    }
+
+    public PackageChangeMonitor(Context context, Listener listener) {
+        this.launcherApps = (LauncherApps) context.getSystemService(Context.LAUNCHER_APPS_SERVICE);
+        this.listener = listener;
+    }
+
+    public void register() {
+        if (registered || launcherApps == null) return;
+        launcherApps.registerCallback(this, new Handler(Looper.getMainLooper()));
+        registered = true;
+    }
+
+    public void unregister() {
+        if (!registered) return;
+        launcherApps.unregisterCallback(this);
+        registered = false;
+    }
+
+    @Override
+    public void onPackageAdded(String packageName, UserHandle user) {
+        if (isCurrentUser(user)) {
+            listener.onPackageUpdated(packageName);
+        }
+    }
+
+    @Override
+    public void onPackageChanged(String packageName, UserHandle user) {
+        if (isCurrentUser(user)) {
+            listener.onPackageUpdated(packageName);
+        }
+    }
+
+    @Override
+    public void onPackageRemoved(String packageName, UserHandle user) {
+        if (isCurrentUser(user)) {
+            listener.onPackageRemoved(packageName);
+        }
+    }
+
+    @Override
+    public void onPackagesAvailable(String[] packageNames, UserHandle user, boolean replacing) {
+        if (!isCurrentUser(user)) return;
+        for (String packageName : packageNames) {
+            listener.onPackageUpdated(packageName);
+        }
+    }
+
+    @Override
+    public void onPackagesUnavailable(String[] packageNames, UserHandle user, boolean replacing) {
+        // Replaced packages come back through onPackagesAvailable
+        if (!isCurrentUser(user) || replacing) return;
+        for (String packageName : packageNames) {
+            listener.onPackageRemoved(packageName);
+        }
+    }
+
+    @Override
+    public void onShortcutsChanged(String packageName, List<ShortcutInfo> shortcuts, UserHandle user) {
+        if (isCurrentUser(user)) {
+            listener.onShortcutsChanged(packageName);
+        }
+    }
+
+    private boolean isCurrentUser(UserHandle user) {
+        // Work profile apps are not shown in the catalog
+        return Process.myUserHandle().equals(user);
+    }
+}
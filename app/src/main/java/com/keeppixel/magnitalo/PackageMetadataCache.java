@@ -0,0 +1,83 @@
+package com.keeppixel.magnitalo;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class PackageMetadataCache {
+
+    private final PackageManager packageManager;
+    private final Map<String, Metadata> entries = new ConcurrentHashMap<>();
+
+    public static class Metadata {
+        public final String packageName;
+        public final int flags;
+        public final long versionCode;
+        public final boolean isSystem;
+        final ApplicationInfo applicationInfo;
+        // Loaded on first use, the catalog takes its labels from the launcher activities
+        volatile String label;
+
+        Metadata(PackageInfo info) {
+            this.packageName = info.packageName;
+            this.applicationInfo = info.applicationInfo;
+            this.flags = info.applicationInfo != null ? info.applicationInfo.flags : 0;
+            this.versionCode = AppCatalogLoader.versionCodeOf(info);
+            this.isSystem = (flags & (ApplicationInfo.FLAG_SYSTEM | ApplicationInfo.FLAG_UPDATED_SYSTEM_APP)) != 0;
+        }
+    }
+
+    public PackageMetadataCache(Context context) {
+        this.packageManager = context.getPackageManager();
+    }
+
+    // Cached metadata, or one getPackageInfo call on a miss; null if the package is not installed.
+    // Thread safe, but misses block on PackageManager, so call it off the main thread.
+    public Metadata get(String packageName) {
+        Metadata metadata = entries.get(packageName);
+        if (metadata != null) return metadata;
+        try {
+            metadata = new Metadata(packageManager.getPackageInfo(packageName, 0));
+        } catch (PackageManager.NameNotFoundException e) {
+            return null;
+        }
+        entries.put(packageName, metadata);
+        return metadata;
+    }
+
+    public String getLabel(String packageName) {
+        Metadata metadata = get(packageName);
+        if (metadata == null) return null;
+        String label = metadata.label;
+        if (label == null) {
+            label = metadata.applicationInfo != null
+                    ? packageManager.getApplicationLabel(metadata.applicationInfo).toString()
+                    : packageName;
+            metadata.label = label;
+        }
+        return label;
+    }
+
+    // Fills the cache for every installed package with a single IPC
+    public void loadAll() {
+        List<PackageInfo> packages = packageManager.getInstalledPackages(0);
+        for (PackageInfo info : packages) {
+            Metadata previous = entries.get(info.packageName);
+            Metadata metadata = new Metadata(info);
+            // Keep an already loaded label while the package is unchanged
+            if (previous != null && previous.versionCode == metadata.versionCode) {
+                metadata.label = previous.label;
+            }
+            entries.put(info.packageName, metadata);
+        }
+    }
+
+    // Called for every package event, before anything reads the package again
+    public void invalidate(String packageName) {
+        entries.remove(packageName);
+    }
+}
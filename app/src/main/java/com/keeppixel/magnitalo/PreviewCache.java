@@ -0,0 +1,92 @@
+package com.keeppixel.magnitalo;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.util.LruCache;
+
+public class PreviewCache {
+
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 300;
+    // More than recents ever holds
+    private static final int MAX_PREVIEWS = 16;
+
+    private static final int COLOR_BACKGROUND = Color.parseColor("#1C1C1E");
+    private static final int COLOR_BOTTOM_BAR = Color.parseColor("#2C2C2E");
+
+    // Main thread only, keyed by package. Evicted bitmaps are left to the GC rather than reused,
+    // a card may still be showing one.
+    private final LruCache<String, Preview> previews = new LruCache<>(MAX_PREVIEWS);
+
+    // Drawing state reused for every preview
+    private final Canvas canvas = new Canvas();
+    private final Paint backgroundPaint = new Paint();
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint uiPaint = new Paint();
+    private final Rect textBounds = new Rect();
+
+    private static class Preview {
+        final String appName;
+        final int accentColor;
+        final Bitmap bitmap;
+
+        Preview(String appName, int accentColor, Bitmap bitmap) {
+            this.appName = appName;
+            this.accentColor = accentColor;
+            this.bitmap = bitmap;
+        }
+    }
+
+    public PreviewCache() {
+        backgroundPaint.setColor(COLOR_BACKGROUND);
+        textPaint.setColor(Color.WHITE);
+        textPaint.setTextSize(24f);
+        textPaint.setTextAlign(Paint.Align.CENTER);
+    }
+
+    // Rebinding a card with the same name and accent allocates nothing; a new accent, e.g. once
+    // the icon color is known, draws a new bitmap and replaces the package's old one
+    public Bitmap get(String packageName, String appName, int accentColor) {
+        Preview preview = previews.get(packageName);
+        if (preview != null && preview.accentColor == accentColor && preview.appName.equals(appName)) {
+            return preview.bitmap;
+        }
+        // Placeholders are opaque, RGB_565 halves their size
+        Bitmap bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.RGB_565);
+        draw(bitmap, appName, accentColor);
+        previews.put(packageName, new Preview(appName, accentColor, bitmap));
+        return bitmap;
+    }
+
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            // Displayed previews stay referenced by their views, the rest is collected
+            previews.evictAll();
+        }
+    }
+
+    private void draw(Bitmap bitmap, String appName, int accentColor) {
+        canvas.setBitmap(bitmap);
+
+        // Background
+        canvas.drawRect(0, 0, WIDTH, HEIGHT, backgroundPaint);
+
+        // Draw app name in center
+        textPaint.getTextBounds(appName, 0, appName.length(), textBounds);
+        canvas.drawText(appName, WIDTH / 2f, HEIGHT / 2f + textBounds.height() / 2f, textPaint);
+
+        // Top bar in the app's color
+        uiPaint.setColor(accentColor);
+        canvas.drawRect(0, 0, WIDTH, 40, uiPaint);
+
+        // Bottom navigation
+        uiPaint.setColor(COLOR_BOTTOM_BAR);
+        canvas.drawRect(0, HEIGHT - 60, WIDTH, HEIGHT, uiPaint);
+
+        canvas.setBitmap(null);
+    }
+}
@@ -0,0 +1,93 @@
+package com.keeppixel.magnitalo;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ProcessMemorySampler {
+
+    // getProcessMemoryInfo is rate limited for other apps' processes anyway
+    private static final long TTL_MS = 5000;
+
+    private final ActivityManager activityManager;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Executor thread only
+    private Map<String, Long> lastSample = Collections.emptyMap();
+    private long lastSampleTime = -TTL_MS;
+
+    public interface Callback {
+        // PSS in bytes per package, summed over all of its processes; missing means not running
+        void onSampled(Map<String, Long> memoryByPackage);
+    }
+
+    public ProcessMemorySampler(Context context) {
+        this.activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+    }
+
+    // Answers from the cached sample while it is fresh, otherwise takes one batched sample
+    public void sample(Callback callback) {
+        executor.execute(() -> {
+            long now = SystemClock.elapsedRealtime();
+            if (now - lastSampleTime >= TTL_MS) {
+                lastSample = takeSample();
+                lastSampleTime = now;
+            }
+            Map<String, Long> result = lastSample;
+            mainHandler.post(() -> callback.onSampled(result));
+        });
+    }
+
+    public void invalidate() {
+        executor.execute(() -> lastSampleTime = -TTL_MS);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Two binder calls in total, however many apps and processes there are
+    private Map<String, Long> takeSample() {
+        if (activityManager == null) return Collections.emptyMap();
+        List<ActivityManager.RunningAppProcessInfo> processes;
+        try {
+            processes = activityManager.getRunningAppProcesses();
+        } catch (SecurityException e) {
+            return Collections.emptyMap();
+        }
+        if (processes == null || processes.isEmpty()) return Collections.emptyMap();
+
+        int[] pids = new int[processes.size()];
+        for (int i = 0; i < pids.length; i++) {
+            pids[i] = processes.get(i).pid;
+        }
+        Debug.MemoryInfo[] infos = activityManager.getProcessMemoryInfo(pids);
+        if (infos == null) return Collections.emptyMap();
+
+        Map<String, Long> memoryByPackage = new HashMap<>();
+        for (int i = 0; i < processes.size() && i < infos.length; i++) {
+            long pssBytes = infos[i].getTotalPss() * 1024L;
+            if (pssBytes <= 0) continue;
+            // Shared processes count towards every package they host
+            String[] packages = processes.get(i).pkgList;
+            if (packages == null || packages.length == 0) {
+                packages = new String[]{processes.get(i).processName};
+            }
+            for (String packageName : packages) {
+                Long total = memoryByPackage.get(packageName);
+                memoryByPackage.put(packageName, total == null ? pssBytes : total + pssBytes);
+            }
+        }
+        return memoryByPackage;
+    }
+}
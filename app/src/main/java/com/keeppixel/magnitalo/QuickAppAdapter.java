@@ -17,6 +17,7 @@ public class QuickAppAdapter extends BaseAdapter {
     private Context context;
     private ArrayList<QuickApp> quickApps;
     private LayoutInflater inflater;
+    private LaunchLatencyTracker launchLatency;
 
     public QuickAppAdapter(Context context, ArrayList<QuickApp> quickApps) {
         this.context = context;
@@ -24,6 +25,10 @@ public class QuickAppAdapter extends BaseAdapter {
         this.inflater = LayoutInflater.from(context);
     }
 
+    public void setLaunchLatencyTracker(LaunchLatencyTracker launchLatency) {
+        this.launchLatency = launchLatency;
+    }
+
     @Override
     public int getCount() {
         return quickApps.size();
@@ -116,6 +121,10 @@ public class QuickAppAdapter extends BaseAdapter {
     }
 
     private void handleAppClick(QuickApp app) {
+        if (launchLatency != null) {
+            boolean known = app.packageName != null && !app.packageName.isEmpty();
+            launchLatency.onLaunchRequested("quick", known ? app.packageName : null);
+        }
         switch (app.name) {
             case "Navigation":
                 openNavigationApp();
@@ -3,10 +3,6 @@ package com.keeppixel.magnitalo;
 import android.app.ActivityManager;
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.Rect;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -15,14 +11,34 @@ import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.cardview.widget.CardView;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
-public class RecentAppsAdapter extends RecyclerView.Adapter<RecentAppsAdapter.ViewHolder> {
+public class RecentAppsAdapter extends RecyclerView.Adapter<RecentAppsAdapter.ViewHolder>
+        implements RelativeTimeTicker.Client {
+
+    // Placeholder top bar color until the icon color is known
+    private static final int DEFAULT_ACCENT = 0xFF007AFF;
+
+    // Partial bind payloads, combined as flags; anything else rebinds the whole card
+    public static final int PAYLOAD_LOCK = 1;
+    public static final int PAYLOAD_TIME = 1 << 1;
+    public static final int PAYLOAD_MEMORY = 1 << 2;
 
     private Context context;
     private ArrayList<MainActivity.RecentAppItem> recentApps;
     private OnRecentAppActionListener actionListener;
+    private IconCache iconCache;
+    private final PreviewCache previewCache = new PreviewCache();
+    // One id per package for the adapter's lifetime, so a card keeps its view across reorders
+    private final Map<String, Long> stableIds = new HashMap<>();
+    // Labels on screen were formatted no earlier than this
+    private long lastTick = System.currentTimeMillis();
 
     public interface OnRecentAppActionListener {
         void onAppClick(MainActivity.RecentAppItem app);
@@ -30,9 +46,11 @@ public class RecentAppsAdapter extends RecyclerView.Adapter<RecentAppsAdapter.Vi
         void onAppLock(MainActivity.RecentAppItem app);
     }
 
-    public RecentAppsAdapter(Context context, ArrayList<MainActivity.RecentAppItem> recentApps) {
+    public RecentAppsAdapter(Context context, ArrayList<MainActivity.RecentAppItem> recentApps, IconCache iconCache) {
         this.context = context;
         this.recentApps = recentApps;
+        this.iconCache = iconCache;
+        setHasStableIds(true);
     }
 
     public void setOnRecentAppActionListener(OnRecentAppActionListener listener) {
@@ -42,64 +60,60 @@ public class RecentAppsAdapter extends RecyclerView.Adapter<RecentAppsAdapter.Vi
     public void removeApp(int position) {
         if (position >= 0 && position < recentApps.size()) {
             recentApps.remove(position);
+            // Listeners look up the position when clicked, the following cards need no rebind
             notifyItemRemoved(position);
-            notifyItemRangeChanged(position, recentApps.size());
         }
     }
 
-    public void updateApps(ArrayList<MainActivity.RecentAppItem> newApps) {
-        this.recentApps = newApps;
-        notifyDataSetChanged();
+    // Moves, inserts and removes only what differs; the list owned by the caller is updated in place.
+    // At most ten cards, so unlike the catalog grid the diff stays on the main thread.
+    public void setApps(List<MainActivity.RecentAppItem> newApps) {
+        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new RecentDiffCallback(recentApps, newApps));
+        recentApps.clear();
+        recentApps.addAll(newApps);
+        diff.dispatchUpdatesTo(this);
     }
 
-    @NonNull
     @Override
-    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(context).inflate(R.layout.item_recent_app, parent, false);
-        return new ViewHolder(view);
-    }
-
-    @Override
-    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        MainActivity.RecentAppItem app = recentApps.get(position);
-
-        // Set app name
-        holder.appName.setText(app.name);
-
-        // Set app icon
-        if (app.iconDrawable != null) {
-            holder.appIcon.setImageDrawable(app.iconDrawable);
-        } else if (app.iconRes != 0) {
-            holder.appIcon.setImageResource(app.iconRes);
-        }
-
-        // Set app preview/screenshot
-        if (app.screenshot != null) {
-            holder.appPreview.setImageBitmap(app.screenshot);
-            holder.appPreview.setScaleType(ImageView.ScaleType.CENTER_CROP);
-        } else {
-            // Create a placeholder preview
-            holder.appPreview.setImageBitmap(createPlaceholderPreview(app.name));
-            holder.appPreview.setScaleType(ImageView.ScaleType.CENTER_CROP);
+    public long onTimeTick(long now) {
+        long next = Long.MAX_VALUE;
+        for (int i = 0; i < recentApps.size(); i++) {
+            long lastUsed = recentApps.get(i).lastUsed;
+            // Only cards whose label text changes are rebound, and only their time field
+            if (RelativeTimeTicker.bucket(lastUsed, now) != RelativeTimeTicker.bucket(lastUsed, lastTick)) {
+                notifyItemChanged(i, PAYLOAD_TIME);
+            }
+            next = Math.min(next, RelativeTimeTicker.nextChange(lastUsed, now));
         }
+        lastTick = now;
+        return next;
+    }
 
-        // Set last used time
-        holder.lastUsedTime.setText(app.lastUsedTime);
+    public void trimMemory(int level) {
+        previewCache.trimMemory(level);
+    }
 
-        // Set memory usage if available
-        if (app.memoryUsage > 0) {
-            holder.memoryUsage.setText(formatMemoryUsage(app.memoryUsage));
-            holder.memoryUsage.setVisibility(View.VISIBLE);
-        } else {
-            holder.memoryUsage.setVisibility(View.GONE);
+    @Override
+    public long getItemId(int position) {
+        String packageName = recentApps.get(position).packageName;
+        Long id = stableIds.get(packageName);
+        if (id == null) {
+            id = (long) stableIds.size();
+            stableIds.put(packageName, id);
         }
+        return id;
+    }
 
-        // Set lock state
-        holder.lockButton.setImageResource(app.isLocked ?
-                R.drawable.outline_lock_24 : R.drawable.round_lock_open_24);
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(context).inflate(R.layout.item_recent_app, parent, false);
+        ViewHolder holder = new ViewHolder(view);
 
-        // Set click listeners
+        // Set once per view; partial binds keep them, so they resolve the item when clicked
         holder.cardView.setOnClickListener(v -> {
+            MainActivity.RecentAppItem app = appAt(holder);
+            if (app == null) return;
             if (actionListener != null) {
                 actionListener.onAppClick(app);
             }
@@ -120,6 +134,8 @@ public class RecentAppsAdapter extends RecyclerView.Adapter<RecentAppsAdapter.Vi
         });
 
         holder.closeButton.setOnClickListener(v -> {
+            MainActivity.RecentAppItem app = appAt(holder);
+            if (app == null) return;
             if (actionListener != null) {
                 actionListener.onAppClose(app, holder.getAdapterPosition());
             }
@@ -133,59 +149,111 @@ public class RecentAppsAdapter extends RecyclerView.Adapter<RecentAppsAdapter.Vi
         });
 
         holder.lockButton.setOnClickListener(v -> {
+            MainActivity.RecentAppItem app = appAt(holder);
+            if (app == null) return;
             if (actionListener != null) {
                 app.isLocked = !app.isLocked;
-                holder.lockButton.setImageResource(app.isLocked ?
-                        R.drawable.outline_lock_24 : R.drawable.round_lock_open_24);
+                bindLock(holder, app);
                 actionListener.onAppLock(app);
             }
         });
+        return holder;
+    }
 
-        // Set background color based on app
-        try {
-            holder.cardView.setCardBackgroundColor(context.getResources().getColor(app.colorRes));
-        } catch (Exception e) {
-            holder.cardView.setCardBackgroundColor(context.getResources().getColor(R.color.black_alpha_80));
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
         }
+        int flags = 0;
+        for (Object payload : payloads) {
+            if (!(payload instanceof Integer)) {
+                onBindViewHolder(holder, position);
+                return;
+            }
+            flags |= (Integer) payload;
+        }
+
+        // Only the changed fields; icon, preview and colors stay as they are
+        MainActivity.RecentAppItem app = recentApps.get(position);
+        if ((flags & PAYLOAD_LOCK) != 0) bindLock(holder, app);
+        if ((flags & PAYLOAD_TIME) != 0) bindTime(holder, app);
+        if ((flags & PAYLOAD_MEMORY) != 0) bindMemory(holder, app);
     }
 
-    private Bitmap createPlaceholderPreview(String appName) {
-        int width = 200;
-        int height = 300;
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        MainActivity.RecentAppItem app = recentApps.get(position);
+
+        // Set app name
+        holder.appName.setText(app.name);
 
-        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-        Canvas canvas = new Canvas(bitmap);
+        // Set app icon, shared with the all-apps grid through the icon cache
+        Bitmap cachedIcon = iconCache != null ? iconCache.getCached(app.iconKey) : null;
+        holder.appIcon.setTag(app.iconKey);
+        if (cachedIcon != null) {
+            holder.appIcon.setImageBitmap(cachedIcon);
+        } else if (iconCache != null && app.iconKey != null) {
+            holder.appIcon.setImageDrawable(null);
+            iconCache.loadInto(holder.appIcon, app.packageName, app.versionCode,
+                    holder.cardView::setCardBackgroundColor);
+        } else if (app.iconDrawable != null) {
+            holder.appIcon.setImageDrawable(app.iconDrawable);
+        } else if (app.iconRes != 0) {
+            holder.appIcon.setImageResource(app.iconRes);
+        }
 
-        // Background gradient
-        Paint backgroundPaint = new Paint();
-        backgroundPaint.setColor(Color.parseColor("#1C1C1E"));
-        canvas.drawRect(0, 0, width, height, backgroundPaint);
+        // Set app preview/screenshot
+        if (app.screenshot != null) {
+            holder.appPreview.setImageBitmap(app.screenshot);
+            holder.appPreview.setScaleType(ImageView.ScaleType.CENTER_CROP);
+        } else {
+            // Placeholder previews are cached, rebinding a card allocates nothing
+            int accent = iconCache != null ? iconCache.getTileColor(app.iconKey) : 0;
+            holder.appPreview.setImageBitmap(previewCache.get(app.packageName, app.name, accent != 0 ? accent : DEFAULT_ACCENT));
+            holder.appPreview.setScaleType(ImageView.ScaleType.CENTER_CROP);
+        }
 
-        // App name text
-        Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        textPaint.setColor(Color.WHITE);
-        textPaint.setTextSize(24f);
-        textPaint.setTextAlign(Paint.Align.CENTER);
+        bindTime(holder, app);
+        bindMemory(holder, app);
+        bindLock(holder, app);
 
-        // Draw app name in center
-        Rect textBounds = new Rect();
-        textPaint.getTextBounds(appName, 0, appName.length(), textBounds);
-        float textX = width / 2f;
-        float textY = height / 2f + textBounds.height() / 2f;
-        canvas.drawText(appName, textX, textY, textPaint);
+        // Set background color based on the app icon
+        int tileColor = iconCache != null ? iconCache.getTileColor(app.iconKey) : 0;
+        if (tileColor != 0) {
+            holder.cardView.setCardBackgroundColor(tileColor);
+        } else {
+            try {
+                holder.cardView.setCardBackgroundColor(context.getResources().getColor(app.colorRes));
+            } catch (Exception e) {
+                holder.cardView.setCardBackgroundColor(context.getResources().getColor(R.color.black_alpha_80));
+            }
+        }
+    }
 
-        // Draw some placeholder UI elements
-        Paint uiPaint = new Paint();
-        uiPaint.setColor(Color.parseColor("#007AFF"));
+    private MainActivity.RecentAppItem appAt(ViewHolder holder) {
+        int position = holder.getAdapterPosition();
+        return position != RecyclerView.NO_POSITION && position < recentApps.size()
+                ? recentApps.get(position) : null;
+    }
 
-        // Top bar
-        canvas.drawRect(0, 0, width, 40, uiPaint);
+    private void bindTime(ViewHolder holder, MainActivity.RecentAppItem app) {
+        holder.lastUsedTime.setText(RelativeTimeTicker.format(app.lastUsed, System.currentTimeMillis()));
+    }
 
-        // Bottom navigation
-        uiPaint.setColor(Color.parseColor("#2C2C2E"));
-        canvas.drawRect(0, height - 60, width, height, uiPaint);
+    private void bindMemory(ViewHolder holder, MainActivity.RecentAppItem app) {
+        if (app.memoryUsage > 0) {
+            holder.memoryUsage.setText(formatMemoryUsage(app.memoryUsage));
+            holder.memoryUsage.setVisibility(View.VISIBLE);
+        } else {
+            holder.memoryUsage.setVisibility(View.GONE);
+        }
+    }
 
-        return bitmap;
+    private void bindLock(ViewHolder holder, MainActivity.RecentAppItem app) {
+        holder.lockButton.setImageResource(app.isLocked ?
+                R.drawable.outline_lock_24 : R.drawable.round_lock_open_24);
     }
 
     private String formatMemoryUsage(long memoryBytes) {
@@ -203,6 +271,60 @@ public class RecentAppsAdapter extends RecyclerView.Adapter<RecentAppsAdapter.Vi
         return recentApps.size();
     }
 
+    static class RecentDiffCallback extends DiffUtil.Callback {
+        private final List<MainActivity.RecentAppItem> oldApps;
+        private final List<MainActivity.RecentAppItem> newApps;
+
+        RecentDiffCallback(List<MainActivity.RecentAppItem> oldApps, List<MainActivity.RecentAppItem> newApps) {
+            this.oldApps = new ArrayList<>(oldApps);
+            this.newApps = newApps;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldApps.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newApps.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return oldApps.get(oldItemPosition).packageName.equals(newApps.get(newItemPosition).packageName);
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            MainActivity.RecentAppItem oldApp = oldApps.get(oldItemPosition);
+            MainActivity.RecentAppItem newApp = newApps.get(newItemPosition);
+            return oldApp == newApp || (sameCard(oldApp, newApp) && changedFields(oldApp, newApp) == 0);
+        }
+
+        @Override
+        public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+            MainActivity.RecentAppItem oldApp = oldApps.get(oldItemPosition);
+            MainActivity.RecentAppItem newApp = newApps.get(newItemPosition);
+            // A new name, icon or preview needs the full bind
+            return sameCard(oldApp, newApp) ? changedFields(oldApp, newApp) : null;
+        }
+
+        private static boolean sameCard(MainActivity.RecentAppItem oldApp, MainActivity.RecentAppItem newApp) {
+            return oldApp.name.equals(newApp.name)
+                    && Objects.equals(oldApp.iconKey, newApp.iconKey)
+                    && oldApp.screenshot == newApp.screenshot;
+        }
+
+        private static int changedFields(MainActivity.RecentAppItem oldApp, MainActivity.RecentAppItem newApp) {
+            int flags = 0;
+            if (oldApp.isLocked != newApp.isLocked) flags |= PAYLOAD_LOCK;
+            if (oldApp.lastUsed != newApp.lastUsed) flags |= PAYLOAD_TIME;
+            if (oldApp.memoryUsage != newApp.memoryUsage) flags |= PAYLOAD_MEMORY;
+            return flags;
+        }
+    }
+
     static class ViewHolder extends RecyclerView.ViewHolder {
         CardView cardView;
         ImageView appIcon, appPreview;
@@ -0,0 +1,206 @@
+package com.keeppixel.magnitalo;
+
+import android.app.usage.UsageEvents;
+import android.app.usage.UsageStatsManager;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class RecentAppsTracker {
+
+    // How far back the very first read goes
+    private static final long INITIAL_WINDOW_MS = 24 * 60 * 60 * 1000L;
+    private static final int MAX_RECENTS = 10;
+
+    private final UsageStatsManager usageStatsManager;
+    private final PackageMetadataCache metadataCache;
+    private final String ownPackage;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // All state below is confined to the executor thread
+    // End of the last read, events before it have already been applied
+    private long cursor = -1;
+    // Ordered from least to most recently used, re-inserting moves an app to the end
+    private final LinkedHashMap<String, Entry> recents = new LinkedHashMap<>();
+    // Dismissed apps come back only when they are used again
+    private final Map<String, Long> dismissedAt = new HashMap<>();
+    // Learns app-to-app transitions from the same events, system apps included
+    private final NextAppPredictor predictor = new NextAppPredictor();
+
+    public static class Entry {
+        public final String packageName;
+        public String label;
+        public long versionCode;
+        public long lastUsed;
+
+        Entry(String packageName) {
+            this.packageName = packageName;
+        }
+
+        Entry copy() {
+            Entry copy = new Entry(packageName);
+            copy.label = label;
+            copy.versionCode = versionCode;
+            copy.lastUsed = lastUsed;
+            return copy;
+        }
+    }
+
+    public interface Callback {
+        // Most recent first; null if usage access was revoked.
+        // predictedNext is the app likely to be opened next, or null when the model is not confident.
+        void onRecentsUpdated(List<Entry> recents, Entry predictedNext);
+    }
+
+    public interface PredictionCallback {
+        // null when the model is not confident
+        void onPrediction(Entry predictedNext);
+    }
+
+    public RecentAppsTracker(Context context, PackageMetadataCache metadataCache) {
+        this.usageStatsManager = (UsageStatsManager) context.getSystemService(Context.USAGE_STATS_SERVICE);
+        this.metadataCache = metadataCache;
+        this.ownPackage = context.getPackageName();
+    }
+
+    // Reads only the events since the previous call and reports the resulting order
+    public void refresh(Callback callback) {
+        executor.execute(() -> {
+            List<Entry> result;
+            Entry prediction = null;
+            try {
+                consumeEvents();
+                result = snapshot();
+                prediction = predict();
+            } catch (SecurityException e) {
+                result = null;
+            }
+            List<Entry> recentsNow = result;
+            Entry predictedNext = prediction;
+            mainHandler.post(() -> callback.onRecentsUpdated(recentsNow, predictedNext));
+        });
+    }
+
+    // Feeds a launch made from here into the model ahead of its usage event and reports what follows it
+    public void onAppLaunched(String packageName, PredictionCallback callback) {
+        long now = System.currentTimeMillis();
+        executor.execute(() -> {
+            Entry prediction = null;
+            try {
+                // Earlier events go first, so the launch is never applied out of order;
+                // its own event arrives later and only refreshes the time
+                consumeEvents();
+                predictor.onForeground(packageName, now);
+                prediction = predict();
+            } catch (SecurityException e) {
+                // No usage access, no model
+            }
+            Entry predictedNext = prediction;
+            mainHandler.post(() -> callback.onPrediction(predictedNext));
+        });
+    }
+
+    public void dismiss(String packageName) {
+        long now = System.currentTimeMillis();
+        executor.execute(() -> {
+            recents.remove(packageName);
+            dismissedAt.put(packageName, now);
+        });
+    }
+
+    // Picks up the new label and version, the metadata cache has to be invalidated first
+    public void invalidatePackage(String packageName) {
+        executor.execute(() -> {
+            Entry entry = recents.get(packageName);
+            if (entry != null && !resolve(entry)) {
+                recents.remove(packageName);
+            }
+            if (metadataCache.get(packageName) == null) {
+                predictor.removePackage(packageName);
+            }
+        });
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @SuppressWarnings("deprecation")
+    private void consumeEvents() {
+        if (usageStatsManager == null) return;
+        long now = System.currentTimeMillis();
+        long from = cursor < 0 ? now - INITIAL_WINDOW_MS : cursor;
+
+        // The end of the range is exclusive, so the next read starts exactly here
+        UsageEvents events = usageStatsManager.queryEvents(from, now);
+        cursor = now;
+        if (events == null) return;
+
+        UsageEvents.Event event = new UsageEvents.Event();
+        while (events.hasNextEvent()) {
+            events.getNextEvent(event);
+            // ACTIVITY_RESUMED shares its value with MOVE_TO_FOREGROUND on older releases
+            if (event.getEventType() != UsageEvents.Event.MOVE_TO_FOREGROUND) continue;
+            String packageName = event.getPackageName();
+            if (ownPackage.equals(packageName)) continue;
+
+            long time = event.getTimeStamp();
+            predictor.onForeground(packageName, time);
+            Long dismissed = dismissedAt.get(packageName);
+            if (dismissed != null) {
+                if (time <= dismissed) continue;
+                dismissedAt.remove(packageName);
+            }
+
+            Entry entry = recents.remove(packageName);
+            if (entry == null) {
+                entry = new Entry(packageName);
+                if (!resolve(entry)) continue;
+            }
+            entry.lastUsed = Math.max(entry.lastUsed, time);
+            recents.put(packageName, entry);
+        }
+
+        // Events arrive in time order, so the oldest entries are the first ones
+        while (recents.size() > MAX_RECENTS) {
+            String eldest = recents.keySet().iterator().next();
+            recents.remove(eldest);
+        }
+    }
+
+    // Served by the shared metadata cache; system and vanished packages are ignored
+    private boolean resolve(Entry entry) {
+        PackageMetadataCache.Metadata metadata = metadataCache.get(entry.packageName);
+        if (metadata == null || metadata.isSystem) return false;
+        entry.label = metadataCache.getLabel(entry.packageName);
+        entry.versionCode = metadata.versionCode;
+        return true;
+    }
+
+    private Entry predict() {
+        String packageName = predictor.predictNext();
+        if (packageName == null) return null;
+        PackageMetadataCache.Metadata metadata = metadataCache.get(packageName);
+        if (metadata == null) return null;
+        Entry entry = new Entry(packageName);
+        entry.label = metadataCache.getLabel(packageName);
+        entry.versionCode = metadata.versionCode;
+        return entry;
+    }
+
+    private List<Entry> snapshot() {
+        ArrayList<Entry> result = new ArrayList<>(recents.size());
+        for (Entry entry : recents.values()) {
+            result.add(0, entry.copy());
+        }
+        return result;
+    }
+}
@@ -10,11 +10,16 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 import java.util.List;
 
-public class RecentCallsAdapter extends RecyclerView.Adapter<RecentCallsAdapter.CallViewHolder> {
+public class RecentCallsAdapter extends RecyclerView.Adapter<RecentCallsAdapter.CallViewHolder>
+        implements RelativeTimeTicker.Client {
+
+    private static final Object PAYLOAD_TIME = new Object();
 
     private Context context;
     private List<MainActivity.CallItem> calls;
     private OnCallClickListener listener;
+    // Labels on screen were formatted no earlier than this
+    private long lastTick = System.currentTimeMillis();
 
     public interface OnCallClickListener {
         void onCallClick(MainActivity.CallItem callItem);
@@ -29,6 +34,20 @@ public class RecentCallsAdapter extends RecyclerView.Adapter<RecentCallsAdapter.
         this.listener = listener;
     }
 
+    @Override
+    public long onTimeTick(long now) {
+        long next = Long.MAX_VALUE;
+        for (int i = 0; i < calls.size(); i++) {
+            long timestamp = calls.get(i).timestamp;
+            if (RelativeTimeTicker.bucket(timestamp, now) != RelativeTimeTicker.bucket(timestamp, lastTick)) {
+                notifyItemChanged(i, PAYLOAD_TIME);
+            }
+            next = Math.min(next, RelativeTimeTicker.nextChange(timestamp, now));
+        }
+        lastTick = now;
+        return next;
+    }
+
     @NonNull
     @Override
     public CallViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -36,12 +55,22 @@ public class RecentCallsAdapter extends RecyclerView.Adapter<RecentCallsAdapter.
         return new CallViewHolder(view);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull CallViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+        } else {
+            // Only time labels are updated partially
+            bindTime(holder, calls.get(position));
+        }
+    }
+
     @Override
     public void onBindViewHolder(@NonNull CallViewHolder holder, int position) {
         MainActivity.CallItem call = calls.get(position);
 
         holder.callerName.setText(call.name);
-        holder.callTime.setText(call.time);
+        bindTime(holder, call);
 
         // Set call type icon and color
         switch (call.type) {
@@ -66,6 +95,10 @@ public class RecentCallsAdapter extends RecyclerView.Adapter<RecentCallsAdapter.
         });
     }
 
+    private void bindTime(CallViewHolder holder, MainActivity.CallItem call) {
+        holder.callTime.setText(RelativeTimeTicker.format(call.timestamp, System.currentTimeMillis()));
+    }
+
     @Override
     public int getItemCount() {
         return calls.size();
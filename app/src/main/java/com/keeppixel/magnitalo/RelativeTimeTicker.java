@@ -0,0 +1,123 @@
+package com.keeppixel.magnitalo;
+
+import android.os.Handler;
+import android.os.Looper;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class RelativeTimeTicker {
+
+    private static final long MINUTE_MS = 60 * 1000L;
+    private static final long HOUR_MS = 60 * MINUTE_MS;
+    private static final long DAY_MS = 24 * HOUR_MS;
+    // Never wake up more often than this, whatever the clients ask for
+    private static final long MIN_DELAY_MS = 1000;
+
+    // Labels are built once per bucket and reused; main thread only
+    private static final String JUST_NOW = "Только что";
+    private static final String[] MINUTE_LABELS = new String[60];
+    private static final String[] HOUR_LABELS = new String[24];
+    // Grown on demand, usage stats rarely reach back more than a few weeks
+    private static String[] dayLabels = new String[32];
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final ArrayList<Client> clients = new ArrayList<>();
+    private final Runnable tick = this::tick;
+    private boolean running;
+
+    public interface Client {
+        // Re-formats the labels whose bucket changed; returns when the next one changes, or Long.MAX_VALUE
+        long onTimeTick(long now);
+    }
+
+    public static String format(long timestamp, long now) {
+        long diff = now - timestamp;
+        if (diff < MINUTE_MS) {
+            return JUST_NOW;
+        } else if (diff < HOUR_MS) {
+            int minutes = (int) (diff / MINUTE_MS);
+            String label = MINUTE_LABELS[minutes];
+            if (label == null) {
+                label = minutes + " мин назад";
+                MINUTE_LABELS[minutes] = label;
+            }
+            return label;
+        } else if (diff < DAY_MS) {
+            int hours = (int) (diff / HOUR_MS);
+            String label = HOUR_LABELS[hours];
+            if (label == null) {
+                label = hours + " ч назад";
+                HOUR_LABELS[hours] = label;
+            }
+            return label;
+        } else {
+            int days = (int) (diff / DAY_MS);
+            if (days >= dayLabels.length) {
+                dayLabels = Arrays.copyOf(dayLabels, Math.max(days + 1, dayLabels.length * 2));
+            }
+            String label = dayLabels[days];
+            if (label == null) {
+                label = days + " дн назад";
+                dayLabels[days] = label;
+            }
+            return label;
+        }
+    }
+
+    // Equal buckets format to the same label
+    public static int bucket(long timestamp, long now) {
+        long diff = now - timestamp;
+        if (diff < MINUTE_MS) return 0;
+        if (diff < HOUR_MS) return (int) (diff / MINUTE_MS);
+        if (diff < DAY_MS) return 100 + (int) (diff / HOUR_MS);
+        return 1000 + (int) (diff / DAY_MS);
+    }
+
+    // The moment the label of this timestamp changes next
+    public static long nextChange(long timestamp, long now) {
+        long diff = now - timestamp;
+        if (diff < MINUTE_MS) return timestamp + MINUTE_MS;
+        if (diff < HOUR_MS) return timestamp + (diff / MINUTE_MS + 1) * MINUTE_MS;
+        if (diff < DAY_MS) return timestamp + (diff / HOUR_MS + 1) * HOUR_MS;
+        return timestamp + (diff / DAY_MS + 1) * DAY_MS;
+    }
+
+    public void register(Client client) {
+        if (!clients.contains(client)) {
+            clients.add(client);
+        }
+        reschedule();
+    }
+
+    public void start() {
+        running = true;
+        // Labels may have gone stale while stopped
+        tick();
+    }
+
+    public void stop() {
+        running = false;
+        handler.removeCallbacks(tick);
+    }
+
+    // Called when the clients' timestamps change, so the next wake-up is recomputed
+    public void reschedule() {
+        if (running) {
+            tick();
+        }
+    }
+
+    private void tick() {
+        handler.removeCallbacks(tick);
+        if (!running) return;
+        long now = System.currentTimeMillis();
+        long next = Long.MAX_VALUE;
+        for (int i = 0; i < clients.size(); i++) {
+            next = Math.min(next, clients.get(i).onTimeTick(now));
+        }
+        // Sleeps until a label actually changes instead of polling every minute
+        if (next != Long.MAX_VALUE) {
+            handler.postDelayed(tick, Math.max(MIN_DELAY_MS, next - now));
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.keeppixel.magnitalo;
+
+import android.content.Context;
+import android.content.pm.LauncherApps;
+import android.content.pm.ShortcutInfo;
+import android.graphics.Rect;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.view.View;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ShortcutCache {
+
+    // Same limit as the system launcher popup
+    private static final int MAX_SHORTCUTS = 4;
+
+    private final LauncherApps launcherApps;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Main thread only. An empty list is cached too, most apps have no shortcuts.
+    private final Map<String, List<ShortcutInfo>> shortcuts = new HashMap<>();
+    // Packages with a query in flight and the callbacks waiting for it; one query per package at a time
+    private final Map<String, List<Callback>> waiting = new HashMap<>();
+    // Bumped per package on invalidation, results of older queries are dropped
+    private final Map<String, Integer> generations = new HashMap<>();
+
+    public interface Callback {
+        void onShortcutsLoaded(String packageName, List<ShortcutInfo> shortcuts);
+    }
+
+    public ShortcutCache(Context context) {
+        this.launcherApps = (LauncherApps) context.getSystemService(Context.LAUNCHER_APPS_SERVICE);
+    }
+
+    // Cached shortcuts or null if the package has not been queried yet
+    public List<ShortcutInfo> getCached(String packageName) {
+        return shortcuts.get(packageName);
+    }
+
+    // Answers synchronously from the cache, otherwise queries in the background
+    public void load(String packageName, Callback callback) {
+        List<ShortcutInfo> cached = shortcuts.get(packageName);
+        if (cached != null) {
+            callback.onShortcutsLoaded(packageName, cached);
+            return;
+        }
+        List<Callback> callbacks = waiting.get(packageName);
+        if (callbacks != null) {
+            // Served by the query already running, e.g. one started by warm()
+            callbacks.add(callback);
+            return;
+        }
+        callbacks = new ArrayList<>();
+        callbacks.add(callback);
+        waiting.put(packageName, callbacks);
+        query(packageName);
+    }
+
+    // Keeps frequently launched apps ready, so their popup never waits for a query
+    public void warm(List<String> packageNames) {
+        for (String packageName : packageNames) {
+            if (!shortcuts.containsKey(packageName) && !waiting.containsKey(packageName)) {
+                waiting.put(packageName, new ArrayList<>());
+                query(packageName);
+            }
+        }
+    }
+
+    public void invalidate(String packageName) {
+        shortcuts.remove(packageName);
+        Integer generation = generations.get(packageName);
+        generations.put(packageName, generation == null ? 1 : generation + 1);
+        // The running query may have read the old shortcuts; its callbacks get a fresh one instead
+        if (waiting.containsKey(packageName)) {
+            query(packageName);
+        }
+    }
+
+    public boolean start(ShortcutInfo shortcut, View source) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N_MR1 || launcherApps == null) return false;
+        int[] location = new int[2];
+        source.getLocationOnScreen(location);
+        Rect bounds = new Rect(location[0], location[1],
+                location[0] + source.getWidth(), location[1] + source.getHeight());
+        try {
+            launcherApps.startShortcut(shortcut, bounds, null);
+            return true;
+        } catch (SecurityException | IllegalStateException | android.content.ActivityNotFoundException e) {
+            // Shortcut was disabled or removed after the popup was built
+            return false;
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Results go to the callbacks waiting for the package; the caller registers them first
+    private void query(String packageName) {
+        Integer generation = generations.get(packageName);
+        int token = generation == null ? 0 : generation;
+        executor.execute(() -> {
+            List<ShortcutInfo> result = queryShortcuts(packageName);
+            mainHandler.post(() -> {
+                // A newer query was started on invalidation and answers the same callbacks
+                Integer current = generations.get(packageName);
+                if ((current == null ? 0 : current) != token) return;
+                List<Callback> callbacks = waiting.remove(packageName);
+                shortcuts.put(packageName, result);
+                if (callbacks == null) return;
+                for (Callback callback : callbacks) {
+                    callback.onShortcutsLoaded(packageName, result);
+                }
+            });
+        });
+    }
+
+    private List<ShortcutInfo> queryShortcuts(String packageName) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N_MR1 || launcherApps == null) {
+            return Collections.emptyList();
+        }
+        List<ShortcutInfo> result;
+        try {
+            // Only the default launcher may read other apps' shortcuts
+            if (!launcherApps.hasShortcutHostPermission()) return Collections.emptyList();
+            LauncherApps.ShortcutQuery query = new LauncherApps.ShortcutQuery();
+            query.setPackage(packageName);
+            query.setQueryFlags(LauncherApps.ShortcutQuery.FLAG_MATCH_MANIFEST
+                    | LauncherApps.ShortcutQuery.FLAG_MATCH_DYNAMIC);
+            result = launcherApps.getShortcuts(query, Process.myUserHandle());
+        } catch (SecurityException | IllegalStateException e) {
+            return Collections.emptyList();
+        }
+        if (result == null || result.isEmpty()) return Collections.emptyList();
+
+        // Static shortcuts first, then dynamic ones, each in the app's own rank order
+        ArrayList<ShortcutInfo> sorted = new ArrayList<>();
+        for (ShortcutInfo shortcut : result) {
+            if (shortcut.isEnabled()) {
+                sorted.add(shortcut);
+            }
+        }
+        sorted.sort((a, b) -> {
+            if (a.isDeclaredInManifest() != b.isDeclaredInManifest()) {
+                return a.isDeclaredInManifest() ? -1 : 1;
+            }
+            return Integer.compare(a.getRank(), b.getRank());
+        });
+        return sorted.size() > MAX_SHORTCUTS
+                ? new ArrayList<>(sorted.subList(0, MAX_SHORTCUTS)) : sorted;
+    }
+}
@@ -1,6 +1,7 @@
 package com.keeppixel.magnitalo;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.LinearGradient;
@@ -9,21 +10,36 @@ import android.graphics.Path;
 import android.graphics.RectF;
 import android.graphics.Shader;
 import android.graphics.SweepGradient;
+import android.os.Trace;
 import android.util.AttributeSet;
+import android.view.Choreographer;
 import android.view.View;
 import android.animation.ValueAnimator;
 import android.animation.AnimatorSet;
 import android.animation.ObjectAnimator;
-import android.view.animation.AccelerateDecelerateInterpolator;
 
 public class SpeedometerView extends View {
 
+    // Needle spring, critically damped: fastest approach without overshoot, settles in about a second
+    private static final float SPRING_OMEGA = 6f;
+    // Below both the needle is snapped to the target and frames stop
+    private static final float SETTLE_SPEED = 0.05f;
+    private static final float SETTLE_VELOCITY = 0.05f;
+    // Caps the step after a stall, so the needle never jumps
+    private static final float MAX_FRAME_SECONDS = 0.1f;
+
     private Paint arcPaint;
     private Paint needlePaint;
     private Paint centerPaint;
     private Paint textPaint;
+    private Paint unitPaint;
     private Paint backgroundPaint;
 
+    // Background circle, arc and unit, rendered once per size; frames only add digits and needle
+    private Bitmap staticLayer;
+    // Digits 0..maxSpeed, so drawing the speed allocates nothing
+    private String[] speedLabels = new String[0];
+
     private RectF arcRect;
     private Path needlePath;
 
@@ -44,7 +60,11 @@ public class SpeedometerView extends View {
     private static final int COLOR_GRAY = 0xFF8E8E93;
     private static final int COLOR_DARK = 0xFF1C1C1E;
 
-    private ValueAnimator speedAnimator;
+    // Needle state, advanced on vsync only while it is moving
+    private float velocity;
+    private long lastFrameNanos;
+    private boolean frameScheduled;
+    private final Choreographer.FrameCallback frameCallback = this::doFrame;
 
     public SpeedometerView(Context context) {
         super(context);
@@ -80,6 +100,11 @@ public class SpeedometerView extends View {
         textPaint.setTextAlign(Paint.Align.CENTER);
         textPaint.setTypeface(android.graphics.Typeface.DEFAULT_BOLD);
 
+        unitPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        unitPaint.setColor(COLOR_GRAY);
+        unitPaint.setTextAlign(Paint.Align.CENTER);
+        unitPaint.setTypeface(android.graphics.Typeface.DEFAULT_BOLD);
+
         backgroundPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
         backgroundPaint.setColor(COLOR_DARK);
         backgroundPaint.setStyle(Paint.Style.FILL);
@@ -110,6 +135,40 @@ public class SpeedometerView extends View {
         SweepGradient gradient = new SweepGradient(centerX, centerY, colors, positions);
         arcPaint.setShader(gradient);
         arcPaint.setStrokeWidth(8f);
+
+        textPaint.setTextSize(radius * 0.4f);
+        unitPaint.setTextSize(radius * 0.15f);
+
+        // Create needle shape, only rotated per frame
+        float needleLength = radius * 0.7f;
+        float needleWidth = 4f;
+        needlePath.reset();
+        needlePath.moveTo(centerX, centerY - needleWidth);
+        needlePath.lineTo(centerX - needleWidth, centerY);
+        needlePath.lineTo(centerX, centerY - needleLength);
+        needlePath.lineTo(centerX + needleWidth, centerY);
+        needlePath.close();
+
+        // Rebuilt lazily at the new size
+        releaseStaticLayer();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (currentSpeed != targetSpeed) {
+            scheduleFrame();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        releaseStaticLayer();
+        if (frameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+            frameScheduled = false;
+        }
     }
 
     @Override
@@ -118,86 +177,123 @@ public class SpeedometerView extends View {
 
         if (radius <= 0) return;
 
+        // Shows up in system traces, frame cost is compared there without any logging
+        Trace.beginSection("Speedometer.onDraw");
+        try {
+            if (staticLayer == null) {
+                buildStaticLayer();
+            }
+            canvas.drawBitmap(staticLayer, 0, 0, null);
+
+            // Draw speed text
+            drawSpeedText(canvas);
+
+            // Draw needle
+            drawNeedle(canvas);
+
+            // Draw center circle
+            canvas.drawCircle(centerX, centerY, 8f, centerPaint);
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private void buildStaticLayer() {
+        Trace.beginSection("Speedometer.buildStaticLayer");
+        try {
+            staticLayer = Bitmap.createBitmap(getWidth(), getHeight(), Bitmap.Config.ARGB_8888);
+            drawStaticParts(new Canvas(staticLayer));
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private void releaseStaticLayer() {
+        // Not recycled: the last recorded display list may still draw it, the GC frees it after
+        staticLayer = null;
+    }
+
+    private void drawStaticParts(Canvas canvas) {
         // Draw background circle
         canvas.drawCircle(centerX, centerY, radius - 4, backgroundPaint);
 
         // Draw speed arc (270 degrees total, starting from 135 degrees)
         canvas.drawArc(arcRect, 135f, 270f, false, arcPaint);
 
-        // Draw speed text
-        drawSpeedText(canvas);
-
-        // Draw needle
-        drawNeedle(canvas);
-
-        // Draw center circle
-        canvas.drawCircle(centerX, centerY, 8f, centerPaint);
+        // Speed unit
+        canvas.drawText("км/ч", centerX, centerY + radius * 0.6f, unitPaint);
     }
 
     private void drawSpeedText(Canvas canvas) {
         // Main speed value
-        textPaint.setTextSize(radius * 0.4f);
-        textPaint.setColor(COLOR_WHITE);
-        canvas.drawText(String.valueOf((int) currentSpeed),
+        canvas.drawText(speedLabel((int) currentSpeed),
                 centerX, centerY + textPaint.getTextSize() * 0.3f, textPaint);
+    }
 
-        // Speed unit
-        textPaint.setTextSize(radius * 0.15f);
-        textPaint.setColor(COLOR_GRAY);
-        canvas.drawText("км/ч", centerX, centerY + radius * 0.6f, textPaint);
+    private String speedLabel(int speed) {
+        if (speed >= speedLabels.length) {
+            String[] grown = new String[Math.max(speed + 1, (int) maxSpeed + 1)];
+            System.arraycopy(speedLabels, 0, grown, 0, speedLabels.length);
+            speedLabels = grown;
+        }
+        String label = speedLabels[speed];
+        if (label == null) {
+            label = String.valueOf(speed);
+            speedLabels[speed] = label;
+        }
+        return label;
     }
 
     private void drawNeedle(Canvas canvas) {
         canvas.save();
         canvas.rotate(needleAngle, centerX, centerY);
-
-        needlePath.reset();
-
-        // Create needle shape
-        float needleLength = radius * 0.7f;
-        float needleWidth = 4f;
-
-        needlePath.moveTo(centerX, centerY - needleWidth);
-        needlePath.lineTo(centerX - needleWidth, centerY);
-        needlePath.lineTo(centerX, centerY - needleLength);
-        needlePath.lineTo(centerX + needleWidth, centerY);
-        needlePath.close();
-
         canvas.drawPath(needlePath, needlePaint);
         canvas.restore();
     }
 
+    // Only moves the target; a running spring carries its velocity over, so calling this every frame is cheap
     public void setSpeed(float speed, boolean animate) {
         targetSpeed = Math.max(0, Math.min(speed, maxSpeed));
 
         if (animate) {
-            animateToSpeed(targetSpeed);
+            scheduleFrame();
         } else {
             currentSpeed = targetSpeed;
+            velocity = 0f;
             needleAngle = speedToAngle(currentSpeed);
             invalidate();
         }
     }
 
-    private void animateToSpeed(float newSpeed) {
-        if (speedAnimator != null && speedAnimator.isRunning()) {
-            speedAnimator.cancel();
-        }
+    private void scheduleFrame() {
+        if (frameScheduled || !isAttachedToWindow()) return;
+        if (currentSpeed == targetSpeed && velocity == 0f) return;
+        frameScheduled = true;
+        lastFrameNanos = System.nanoTime();
+        Choreographer.getInstance().postFrameCallback(frameCallback);
+    }
 
-        speedAnimator = ValueAnimator.ofFloat(currentSpeed, newSpeed);
-        speedAnimator.setDuration(1000);
-        speedAnimator.setInterpolator(new AccelerateDecelerateInterpolator());
+    private void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        float dt = Math.min(Math.max(0, frameTimeNanos - lastFrameNanos) / 1e9f, MAX_FRAME_SECONDS);
+        lastFrameNanos = frameTimeNanos;
 
-        speedAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                currentSpeed = (Float) animation.getAnimatedValue();
-                needleAngle = speedToAngle(currentSpeed);
-                invalidate();
-            }
-        });
+        // Exact step of a critically damped spring, stable for any frame length
+        float offset = currentSpeed - targetSpeed;
+        float decay = (float) Math.exp(-SPRING_OMEGA * dt);
+        float b = velocity + SPRING_OMEGA * offset;
+        currentSpeed = targetSpeed + (offset + b * dt) * decay;
+        velocity = (velocity - SPRING_OMEGA * b * dt) * decay;
 
-        speedAnimator.start();
+        if (Math.abs(currentSpeed - targetSpeed) < SETTLE_SPEED && Math.abs(velocity) < SETTLE_VELOCITY) {
+            currentSpeed = targetSpeed;
+            velocity = 0f;
+        } else {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+        needleAngle = speedToAngle(currentSpeed);
+        invalidate();
     }
 
     private float speedToAngle(float speed) {
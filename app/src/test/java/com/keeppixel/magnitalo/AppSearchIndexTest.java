@@ -0,0 +1,153 @@
+package com.keeppixel.magnitalo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AppSearchIndexTest {
+
+    private AppSearchIndex index;
+    private AppItem googleMaps;
+    private AppItem mapsGo;
+    private AppItem telegram;
+    private AppItem telegramRu;
+    private AppItem yandexMusic;
+
+    @Before
+    public void setUp() {
+        index = new AppSearchIndex();
+        googleMaps = app("Google Maps", "com.google.android.apps.maps");
+        mapsGo = app("Maps Go", "com.google.android.apps.mapslite");
+        telegram = app("Telegram", "org.telegram.messenger");
+        telegramRu = app("Телеграм", "org.telegram.ru");
+        yandexMusic = app("Яндекс Музыка", "ru.yandex.music");
+        index.add(googleMaps);
+        index.add(mapsGo);
+        index.add(telegram);
+        index.add(telegramRu);
+        index.add(yandexMusic);
+    }
+
+    @Test
+    public void emptyQueryFindsNothing() {
+        assertTrue(index.search("").isEmpty());
+        assertTrue(index.search("  ").isEmpty());
+    }
+
+    @Test
+    public void nameStartRanksBeforeWordStart() {
+        List<AppItem> results = index.search("ma");
+        assertEquals(2, results.size());
+        assertSame(mapsGo, results.get(0));
+        assertSame(googleMaps, results.get(1));
+    }
+
+    @Test
+    public void queryMatchesAcrossWords() {
+        List<AppItem> results = index.search("google ma");
+        assertEquals(1, results.size());
+        assertSame(googleMaps, results.get(0));
+    }
+
+    @Test
+    public void latinQueryFindsCyrillicName() {
+        List<AppItem> results = index.search("muzik");
+        assertEquals(1, results.size());
+        assertSame(yandexMusic, results.get(0));
+    }
+
+    @Test
+    public void cyrillicQueryFindsLatinName() {
+        List<AppItem> results = index.search("телеграм");
+        assertTrue(results.contains(telegram));
+        assertTrue(results.contains(telegramRu));
+    }
+
+    @Test
+    public void wrongKeyboardLayoutIsRetried() {
+        // "ntktuhfv" is "телеграм" typed on the Latin layout
+        List<AppItem> results = index.search("ntktuhfv");
+        assertTrue(results.contains(telegram));
+        assertTrue(results.contains(telegramRu));
+    }
+
+    @Test
+    public void typosAreToleratedForLongerQueries() {
+        assertTrue(index.search("telgram").contains(telegram));
+        assertTrue(index.search("tekegram").contains(telegram));
+        // Two letters allow no edits
+        assertTrue(index.search("tx").isEmpty());
+    }
+
+    @Test
+    public void exactPrefixesRankBeforeTypos() {
+        AppItem telecom = app("Telecom", "com.example.telecom");
+        index.add(telecom);
+        List<AppItem> results = index.search("teleg");
+        assertSame(telegram, results.get(0));
+        assertFalse(results.indexOf(telecom) >= 0 && results.indexOf(telecom) < results.indexOf(telegram));
+    }
+
+    @Test
+    public void removedPackagesAreNotFound() {
+        index.removePackage("org.telegram.messenger");
+        List<AppItem> results = index.search("telegram");
+        assertFalse(results.contains(telegram));
+        assertTrue(results.contains(telegramRu));
+
+        index.remove(telegramRu);
+        assertTrue(index.search("telegram").isEmpty());
+    }
+
+    @Test
+    public void foldTransliteratesAndNormalizesSpelling() {
+        assertEquals("elka", AppSearchIndex.fold("Ёлка"));
+        assertEquals("iandeks", AppSearchIndex.fold("Яндекс"));
+        assertEquals("iandeks", AppSearchIndex.fold("Yandex"));
+        assertEquals("vhatsapp", AppSearchIndex.fold("WhatsApp"));
+        assertEquals("googlemaps", AppSearchIndex.fold("Google Maps!"));
+    }
+
+    @Test
+    public void swapKeyboardLayoutMapsBothWays() {
+        assertEquals("телеграм", AppSearchIndex.swapKeyboardLayout("ntktuhfv"));
+        assertEquals("ntktuhfv", AppSearchIndex.swapKeyboardLayout("телеграм"));
+    }
+
+    @Test
+    public void largeCatalogStaysFast() {
+        AppSearchIndex large = new AppSearchIndex();
+        List<AppItem> apps = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            apps.add(app("Application " + Integer.toString(i, 36) + " Suite", "com.example.app" + i));
+        }
+        large.addAll(apps);
+
+        String[] queries = {"a", "ap", "app", "appl", "applic", "aplication", "suite", "zz"};
+        // Warm up the JIT before timing
+        for (int i = 0; i < 200; i++) {
+            for (String query : queries) {
+                large.search(query);
+            }
+        }
+        long start = System.nanoTime();
+        int rounds = 200;
+        for (int i = 0; i < rounds; i++) {
+            for (String query : queries) {
+                large.search(query);
+            }
+        }
+        long perSearchMicros = (System.nanoTime() - start) / 1000 / (rounds * queries.length);
+        // A loose bound that only catches accidental full scans or quadratic work
+        assertTrue("search took " + perSearchMicros + " us", perSearchMicros < 2000);
+        assertEquals(64, large.search("app").size());
+    }
+
+    private static AppItem app(String name, String packageName) {
+        return new AppItem(name, packageName, 0, 0);
+    }
+}
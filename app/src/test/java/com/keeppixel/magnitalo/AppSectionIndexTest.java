@@ -0,0 +1,75 @@
+package com.keeppixel.magnitalo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AppSectionIndexTest {
+
+    @Test
+    public void sectionsFollowTheSortedCatalog() {
+        AppSectionIndex index = new AppSectionIndex(apps("Camera", "Chrome", "Maps", "Phone", "Play Store"));
+        assertArrayEquals(new String[]{"C", "M", "P"}, index.getSections());
+        assertEquals(0, index.getPositionForSection(0));
+        assertEquals(2, index.getPositionForSection(1));
+        assertEquals(3, index.getPositionForSection(2));
+    }
+
+    @Test
+    public void everyPositionMapsToItsSection() {
+        AppSectionIndex index = new AppSectionIndex(apps("Camera", "Chrome", "Maps", "Phone", "Play Store"));
+        int[] expected = {0, 0, 1, 2, 2};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("position " + i, expected[i], index.getSectionForPosition(i));
+        }
+    }
+
+    @Test
+    public void returningLetterMapsToItsOwnSection() {
+        // "Éclair" collates among the E names but, as "E", comes back after the "F" section has opened
+        AppSectionIndex index = new AppSectionIndex(apps("Email", "Files", "Éclair", "Gallery"));
+        assertArrayEquals(new String[]{"E", "F", "G"}, index.getSections());
+        assertEquals(0, index.getSectionForPosition(0));
+        assertEquals(1, index.getSectionForPosition(1));
+        assertEquals(0, index.getSectionForPosition(2));
+        assertEquals(2, index.getSectionForPosition(3));
+    }
+
+    @Test
+    public void outOfRangeLookupsAreClamped() {
+        AppSectionIndex index = new AppSectionIndex(apps("Camera", "Maps"));
+        assertEquals(0, index.getPositionForSection(-1));
+        assertEquals(1, index.getPositionForSection(5));
+        assertEquals(0, index.getSectionForPosition(-3));
+        assertEquals(1, index.getSectionForPosition(99));
+    }
+
+    @Test
+    public void emptyCatalogHasNoSections() {
+        AppSectionIndex index = new AppSectionIndex(Collections.<AppItem>emptyList());
+        assertEquals(0, index.getSections().length);
+        assertEquals(0, index.getPositionForSection(3));
+        assertEquals(0, index.getSectionForPosition(3));
+    }
+
+    @Test
+    public void sectionOfFoldsAccentsAndSymbols() {
+        assertEquals("E", AppSectionIndex.sectionOf("éclair"));
+        assertEquals("Е", AppSectionIndex.sectionOf("Ёлка"));
+        assertEquals("Я", AppSectionIndex.sectionOf("  яндекс"));
+        assertEquals("#", AppSectionIndex.sectionOf("2GIS"));
+        assertEquals("#", AppSectionIndex.sectionOf("   "));
+    }
+
+    private static List<AppItem> apps(String... names) {
+        List<AppItem> apps = new ArrayList<>();
+        for (String name : names) {
+            apps.add(new AppItem(name, "pkg." + name, 0, 0));
+        }
+        return apps;
+    }
+}
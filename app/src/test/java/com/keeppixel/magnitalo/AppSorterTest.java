@@ -0,0 +1,83 @@
+package com.keeppixel.magnitalo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class AppSorterTest {
+
+    private final AppSorter sorter = new AppSorter(new Locale("ru", "RU"));
+
+    @Test
+    public void sortsIgnoringCase() {
+        List<AppItem> apps = keyed("zoom", "Apple Music", "banking");
+        Collections.sort(apps, AppSorter.COMPARATOR);
+        assertEquals("Apple Music", apps.get(0).name);
+        assertEquals("banking", apps.get(1).name);
+        assertEquals("zoom", apps.get(2).name);
+    }
+
+    @Test
+    public void yoSortsNextToYe() {
+        List<AppItem> apps = keyed("Яндекс", "Ёлка", "Есения", "Жук");
+        Collections.sort(apps, AppSorter.COMPARATOR);
+        int yo = indexOf(apps, "Ёлка");
+        int ya = indexOf(apps, "Яндекс");
+        int zhe = indexOf(apps, "Жук");
+        // "ёл" < "ес" only when Ё is compared as Е
+        assertTrue(yo < indexOf(apps, "Есения"));
+        assertTrue(yo < zhe);
+        assertTrue(yo < ya);
+    }
+
+    @Test
+    public void unkeyedItemsFallBackToNames() {
+        AppItem a = new AppItem("alpha", "a", 0, 0);
+        AppItem b = new AppItem("Beta", "b", 0, 0);
+        assertTrue(AppSorter.COMPARATOR.compare(a, b) < 0);
+        assertTrue(AppSorter.COMPARATOR.compare(b, a) > 0);
+    }
+
+    @Test
+    public void insertionIndexKeepsListSorted() {
+        List<AppItem> apps = keyed("Camera", "Maps", "Phone");
+        Collections.sort(apps, AppSorter.COMPARATOR);
+
+        AppItem first = keyed("Browser").get(0);
+        AppItem middle = keyed("Music").get(0);
+        AppItem last = keyed("Weather").get(0);
+        assertEquals(0, AppSorter.insertionIndex(apps, first));
+        assertEquals(2, AppSorter.insertionIndex(apps, middle));
+        assertEquals(3, AppSorter.insertionIndex(apps, last));
+    }
+
+    @Test
+    public void insertionIndexGoesAfterEqualEntries() {
+        List<AppItem> apps = keyed("Maps", "Maps", "Phone");
+        AppItem another = keyed("maps").get(0);
+        assertEquals(2, AppSorter.insertionIndex(apps, another));
+        assertEquals(0, AppSorter.insertionIndex(new ArrayList<>(), another));
+    }
+
+    private List<AppItem> keyed(String... names) {
+        List<AppItem> apps = new ArrayList<>();
+        for (String name : names) {
+            AppItem app = new AppItem(name, "pkg." + name, 0, 0);
+            sorter.assignKey(app);
+            apps.add(app);
+        }
+        return apps;
+    }
+
+    private static int indexOf(List<AppItem> apps, String name) {
+        for (int i = 0; i < apps.size(); i++) {
+            if (apps.get(i).name.equals(name)) return i;
+        }
+        return -1;
+    }
+}
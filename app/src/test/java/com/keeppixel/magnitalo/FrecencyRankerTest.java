@@ -0,0 +1,150 @@
+package com.keeppixel.magnitalo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FrecencyRankerTest {
+
+    private static final long HOUR_MS = 60 * 60 * 1000L;
+    private static final long DAY_MS = 24 * HOUR_MS;
+    private static final long HALF_LIFE_MS = 3 * DAY_MS;
+
+    private final FrecencyRanker ranker = new FrecencyRanker();
+    // Noon, so shifting by a few hours stays within the same day
+    private final long now = atHour(12);
+
+    @Test
+    public void moreLaunchesRankHigher() {
+        launch("maps", 3, now);
+        launch("music", 1, now);
+        launch("phone", 2, now);
+        assertEquals(Arrays.asList("maps", "phone", "music"), ranker.topPackages(10, now));
+        assertEquals(Arrays.asList("maps", "phone"), ranker.topPackages(2, now));
+    }
+
+    @Test
+    public void scoreHalvesAfterHalfLife() {
+        ranker.recordLaunch("maps", now);
+        ranker.recordLaunch("maps", now + HALF_LIFE_MS);
+        FrecencyRanker.Entry entry = entryOf("maps");
+        assertEquals(1.5, entry.score, 1e-9);
+        assertEquals(2, entry.launchCount);
+    }
+
+    @Test
+    public void recentLaunchesBeatOldOnes() {
+        // Ten launches a month ago are worth less than two today
+        launch("old", 10, now - 30 * DAY_MS);
+        launch("recent", 2, now);
+        assertEquals("recent", ranker.topPackages(1, now).get(0));
+    }
+
+    @Test
+    public void launchesAtThisHourBoostTheScore() {
+        ranker.recordLaunch("morning", now - 4 * HOUR_MS);
+        ranker.recordLaunch("noon", now - 4 * HOUR_MS);
+        // Same decayed score for both, only the hour of day differs
+        FrecencyRanker.Entry noon = entryOf("noon");
+        noon.hourCounts[hourOf(now - 4 * HOUR_MS)] = 0f;
+        noon.hourCounts[12] = 1f;
+        assertEquals("noon", ranker.topPackages(1, now).get(0));
+    }
+
+    @Test
+    public void rankKeepsCatalogOrderForUnlaunchedApps() {
+        List<AppItem> apps = new ArrayList<>();
+        for (String name : new String[]{"a", "b", "c", "d"}) {
+            apps.add(new AppItem(name, name, 0, 0));
+        }
+        ranker.recordLaunch("c", now);
+
+        List<AppItem> ranked = ranker.rank(apps, now);
+        assertEquals("c", ranked.get(0).packageName);
+        assertEquals("a", ranked.get(1).packageName);
+        assertEquals("b", ranked.get(2).packageName);
+        assertEquals("d", ranked.get(3).packageName);
+    }
+
+    @Test
+    public void restoreAddsUnknownEntries() {
+        FrecencyRanker.Entry restored = restored("maps", 2.0, now - DAY_MS, 4);
+        ranker.restoreEntry(restored);
+        assertSame(restored, entryOf("maps"));
+    }
+
+    @Test
+    public void restoreMergesWithLaunchesSinceStartup() {
+        ranker.recordLaunch("maps", now);
+        FrecencyRanker.Entry restored = restored("maps", 4.0, now - HALF_LIFE_MS, 7);
+        restored.hourCounts[9] = 5f;
+        restored.hourTotal = 5f;
+        ranker.restoreEntry(restored);
+
+        FrecencyRanker.Entry merged = entryOf("maps");
+        // The restored score decays to now and adds to the launch made since startup
+        assertEquals(1.0 + 2.0, merged.score, 1e-9);
+        assertEquals(now, merged.lastLaunchTime);
+        assertEquals(8, merged.launchCount);
+        assertEquals(5f, merged.hourCounts[9], 0f);
+        assertEquals(6f, merged.hourTotal, 0f);
+    }
+
+    @Test
+    public void restoreKeepsTheLatestTimestamp() {
+        ranker.recordLaunch("maps", now - HALF_LIFE_MS);
+        ranker.restoreEntry(restored("maps", 1.0, now, 1));
+
+        FrecencyRanker.Entry merged = entryOf("maps");
+        assertEquals(now, merged.lastLaunchTime);
+        assertEquals(1.5, merged.score, 1e-9);
+    }
+
+    @Test
+    public void hourHistogramIsBounded() {
+        launch("maps", 500, now);
+        FrecencyRanker.Entry entry = entryOf("maps");
+        assertTrue(entry.hourTotal < 200f);
+        assertEquals(500, entry.launchCount);
+    }
+
+    private void launch(String packageName, int times, long time) {
+        for (int i = 0; i < times; i++) {
+            ranker.recordLaunch(packageName, time);
+        }
+    }
+
+    private FrecencyRanker.Entry entryOf(String packageName) {
+        for (FrecencyRanker.Entry entry : ranker.getEntries()) {
+            if (entry.packageName.equals(packageName)) return entry;
+        }
+        fail("no entry for " + packageName);
+        return null;
+    }
+
+    private static FrecencyRanker.Entry restored(String packageName, double score, long lastLaunch, int count) {
+        FrecencyRanker.Entry entry = new FrecencyRanker.Entry(packageName);
+        entry.score = score;
+        entry.lastLaunchTime = lastLaunch;
+        entry.launchCount = count;
+        return entry;
+    }
+
+    private static long atHour(int hour) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2024, Calendar.MARCH, 12, hour, 0, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    private static int hourOf(long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        return calendar.get(Calendar.HOUR_OF_DAY);
+    }
+}
@@ -0,0 +1,76 @@
+package com.keeppixel.magnitalo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LaunchLatencyHistogramTest {
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LaunchLatencyTracker.Histogram histogram = new LaunchLatencyTracker.Histogram();
+        assertEquals(0, histogram.count);
+        assertEquals(0, histogram.percentile(0.5));
+        assertEquals(0, histogram.percentile(0.99));
+    }
+
+    @Test
+    public void percentilesNeverExceedTheLargestSample() {
+        LaunchLatencyTracker.Histogram histogram = new LaunchLatencyTracker.Histogram();
+        histogram.record(100);
+        assertEquals(1, histogram.count);
+        assertEquals(100, histogram.max);
+        assertEquals(100, histogram.percentile(0.5));
+        assertEquals(100, histogram.percentile(0.99));
+
+        histogram = new LaunchLatencyTracker.Histogram();
+        histogram.record(3);
+        assertEquals(3, histogram.percentile(0.5));
+    }
+
+    @Test
+    public void percentilesAreWithinOneBucketOfTheTruth() {
+        LaunchLatencyTracker.Histogram histogram = new LaunchLatencyTracker.Histogram();
+        for (int latency = 10; latency <= 1000; latency += 10) {
+            histogram.record(latency);
+        }
+        assertEquals(100, histogram.count);
+        assertEquals(1000, histogram.max);
+
+        // Buckets are 15% wide, so a reported percentile is at most 15% above the true one
+        assertInBucketOf(500, histogram.percentile(0.50));
+        assertInBucketOf(950, histogram.percentile(0.95));
+        assertInBucketOf(990, histogram.percentile(0.99));
+        assertEquals(1000, histogram.percentile(1.0));
+    }
+
+    @Test
+    public void percentilesAreMonotonic() {
+        LaunchLatencyTracker.Histogram histogram = new LaunchLatencyTracker.Histogram();
+        long[] samples = {120, 80, 4000, 350, 95, 1500, 220, 60, 700, 15000};
+        for (long sample : samples) {
+            histogram.record(sample);
+        }
+        long previous = 0;
+        for (double quantile = 0.05; quantile <= 1.0; quantile += 0.05) {
+            long value = histogram.percentile(quantile);
+            assertTrue(value >= previous);
+            previous = value;
+        }
+        assertEquals(15000, histogram.percentile(1.0));
+    }
+
+    @Test
+    public void outliersLandInTheLastBucket() {
+        LaunchLatencyTracker.Histogram histogram = new LaunchLatencyTracker.Histogram();
+        histogram.record(45_000);
+        assertEquals(45_000, histogram.max);
+        // The last bucket is capped at the 30 s matching window
+        assertEquals(30_000, histogram.percentile(0.5));
+    }
+
+    private static void assertInBucketOf(long expected, long actual) {
+        assertTrue("expected about " + expected + " but was " + actual,
+                actual >= expected && actual <= Math.ceil(expected * 1.15));
+    }
+}
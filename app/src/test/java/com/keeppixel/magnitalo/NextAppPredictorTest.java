@@ -0,0 +1,116 @@
+package com.keeppixel.magnitalo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NextAppPredictorTest {
+
+    private static final long MINUTE_MS = 60 * 1000L;
+
+    private final NextAppPredictor predictor = new NextAppPredictor();
+    private long time = 1_000_000L;
+
+    @Test
+    public void emptyModelPredictsNothing() {
+        assertNull(predictor.predictNext());
+        switchTo("mail");
+        assertNull(predictor.predictNext());
+    }
+
+    @Test
+    public void needsEnoughTransitionsBeforePredicting() {
+        for (int i = 0; i < 4; i++) {
+            switchTo("mail");
+            switchTo("calendar");
+        }
+        switchTo("mail");
+        // Four transitions out of "mail" so far
+        assertNull(predictor.predictNext());
+
+        switchTo("calendar");
+        switchTo("mail");
+        assertEquals("calendar", predictor.predictNext());
+    }
+
+    @Test
+    public void scatteredHabitsAreNotConfident() {
+        String[] next = {"a", "b", "c", "d", "e", "f"};
+        for (String packageName : next) {
+            switchTo("mail");
+            switchTo(packageName);
+        }
+        switchTo("mail");
+        assertNull(predictor.predictNext());
+    }
+
+    @Test
+    public void mostFrequentFollowerWins() {
+        String[] next = {"calendar", "maps", "calendar", "notes", "calendar", "maps"};
+        for (String packageName : next) {
+            switchTo("mail");
+            switchTo(packageName);
+        }
+        switchTo("mail");
+        assertEquals("calendar", predictor.predictNext());
+    }
+
+    @Test
+    public void switchesAfterALongPauseAreNotTransitions() {
+        for (int i = 0; i < 6; i++) {
+            switchTo("mail");
+            time += 31 * MINUTE_MS;
+            switchTo("calendar");
+        }
+        switchTo("mail");
+        assertNull(predictor.predictNext());
+    }
+
+    @Test
+    public void repeatedEventsOfTheSameAppAreIgnored() {
+        for (int i = 0; i < 6; i++) {
+            switchTo("mail");
+            // Each refreshes the time, so the pause before the switch stays short
+            time += 20 * MINUTE_MS;
+            switchTo("mail");
+            switchTo("calendar");
+        }
+        switchTo("mail");
+        assertEquals("calendar", predictor.predictNext());
+    }
+
+    @Test
+    public void oldRoutinesDecayAway() {
+        for (int i = 0; i < 60; i++) {
+            switchTo("mail");
+            switchTo("calendar");
+        }
+        for (int i = 0; i < 60; i++) {
+            switchTo("mail");
+            switchTo("maps");
+        }
+        switchTo("mail");
+        assertEquals("maps", predictor.predictNext());
+    }
+
+    @Test
+    public void removedPackageIsNeverPredicted() {
+        for (int i = 0; i < 6; i++) {
+            switchTo("mail");
+            switchTo("calendar");
+        }
+        switchTo("mail");
+        switchTo("maps");
+        switchTo("mail");
+        predictor.removePackage("calendar");
+        assertNull(predictor.predictNext());
+
+        predictor.removePackage("mail");
+        assertNull(predictor.predictNext());
+    }
+
+    private void switchTo(String packageName) {
+        time += MINUTE_MS;
+        predictor.onForeground(packageName, time);
+    }
+}
@@ -0,0 +1,84 @@
+package com.keeppixel.magnitalo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RelativeTimeTickerTest {
+
+    private static final long SECOND_MS = 1000L;
+    private static final long MINUTE_MS = 60 * SECOND_MS;
+    private static final long HOUR_MS = 60 * MINUTE_MS;
+    private static final long DAY_MS = 24 * HOUR_MS;
+
+    private final long timestamp = 1_700_000_000_000L;
+
+    @Test
+    public void formatsEachRange() {
+        assertEquals("Только что", RelativeTimeTicker.format(timestamp, timestamp));
+        assertEquals("Только что", RelativeTimeTicker.format(timestamp, timestamp + 59 * SECOND_MS));
+        assertEquals("1 мин назад", RelativeTimeTicker.format(timestamp, timestamp + MINUTE_MS));
+        assertEquals("59 мин назад", RelativeTimeTicker.format(timestamp, timestamp + HOUR_MS - 1));
+        assertEquals("1 ч назад", RelativeTimeTicker.format(timestamp, timestamp + HOUR_MS));
+        assertEquals("23 ч назад", RelativeTimeTicker.format(timestamp, timestamp + DAY_MS - 1));
+        assertEquals("1 дн назад", RelativeTimeTicker.format(timestamp, timestamp + DAY_MS));
+    }
+
+    @Test
+    public void futureTimestampsAreJustNow() {
+        assertEquals("Только что", RelativeTimeTicker.format(timestamp + HOUR_MS, timestamp));
+    }
+
+    @Test
+    public void labelsAreReused() {
+        String first = RelativeTimeTicker.format(timestamp, timestamp + 5 * MINUTE_MS);
+        String second = RelativeTimeTicker.format(timestamp, timestamp + 5 * MINUTE_MS + 30 * SECOND_MS);
+        assertSame(first, second);
+        assertSame(RelativeTimeTicker.format(timestamp, timestamp + 3 * DAY_MS),
+                RelativeTimeTicker.format(timestamp, timestamp + 3 * DAY_MS + HOUR_MS));
+    }
+
+    @Test
+    public void oldTimestampsGrowTheDayLabels() {
+        assertEquals("400 дн назад", RelativeTimeTicker.format(timestamp, timestamp + 400 * DAY_MS));
+        assertEquals("2 дн назад", RelativeTimeTicker.format(timestamp, timestamp + 2 * DAY_MS));
+    }
+
+    @Test
+    public void bucketChangesExactlyWhenTheLabelDoes() {
+        long[] offsets = {0, 30 * SECOND_MS, MINUTE_MS, 90 * SECOND_MS, 59 * MINUTE_MS, HOUR_MS,
+                2 * HOUR_MS + MINUTE_MS, DAY_MS - 1, DAY_MS, 3 * DAY_MS, 3 * DAY_MS + HOUR_MS};
+        for (long a : offsets) {
+            for (long b : offsets) {
+                boolean sameLabel = RelativeTimeTicker.format(timestamp, timestamp + a)
+                        .equals(RelativeTimeTicker.format(timestamp, timestamp + b));
+                boolean sameBucket = RelativeTimeTicker.bucket(timestamp, timestamp + a)
+                        == RelativeTimeTicker.bucket(timestamp, timestamp + b);
+                assertEquals(a + " vs " + b, sameLabel, sameBucket);
+            }
+        }
+    }
+
+    @Test
+    public void nextChangeIsTheFirstMomentOfTheNextBucket() {
+        long[] offsets = {0, 30 * SECOND_MS, MINUTE_MS, 59 * MINUTE_MS + 59 * SECOND_MS,
+                HOUR_MS, 5 * HOUR_MS + 7 * MINUTE_MS, DAY_MS, 10 * DAY_MS + 3 * HOUR_MS};
+        for (long offset : offsets) {
+            long now = timestamp + offset;
+            long next = RelativeTimeTicker.nextChange(timestamp, now);
+            int bucket = RelativeTimeTicker.bucket(timestamp, now);
+            assertTrue(next > now);
+            assertEquals("offset " + offset, bucket, RelativeTimeTicker.bucket(timestamp, next - 1));
+            assertNotEquals("offset " + offset, bucket, RelativeTimeTicker.bucket(timestamp, next));
+        }
+    }
+
+    @Test
+    public void nextChangeSleepsLongerAsLabelsAge() {
+        assertEquals(timestamp + MINUTE_MS, RelativeTimeTicker.nextChange(timestamp, timestamp));
+        assertEquals(timestamp + 2 * HOUR_MS,
+                RelativeTimeTicker.nextChange(timestamp, timestamp + HOUR_MS + MINUTE_MS));
+        assertEquals(timestamp + 3 * DAY_MS,
+                RelativeTimeTicker.nextChange(timestamp, timestamp + 2 * DAY_MS + HOUR_MS));
+    }
+}